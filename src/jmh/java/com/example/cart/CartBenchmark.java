@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CartBenchmark {
+
+	@Param({ "1", "10", "100", "1000", "10000" })
+	int size;
+
+	Cart cart;
+
+	List<CartItem> existingItems;
+
+	List<CartItem> currentItems;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		this.cart = CartFixtures.cart(this.size);
+		// Simulate what save() sees: items loaded from DB vs. the aggregate after one
+		// quantity change, one removal and one addition
+		this.existingItems = this.cart.getItems().stream().map(CartFixtures::copy).toList();
+		this.currentItems = new ArrayList<>(this.cart.getItems().stream().map(CartFixtures::copy).toList());
+		this.currentItems.get(this.size / 2).setQuantity(99);
+		this.currentItems.remove(0);
+		this.currentItems
+			.add(new CartItem(this.cart.getId(), "product-new", "New Product", new BigDecimal("9.99"), 1));
+	}
+
+	@Benchmark
+	public Cart buildCart() {
+		Cart cart = new Cart(UUID.randomUUID(), "user", OffsetDateTime.MIN, OffsetDateTime.MIN);
+		for (int i = 0; i < this.size; i++) {
+			cart.addItem("product-" + i, "Product " + i, BigDecimal.TEN, 1);
+		}
+		return cart;
+	}
+
+	@Benchmark
+	public Cart addItemToExistingProduct() {
+		// The last product is the worst case for the linear product lookup
+		this.cart.addItem("product-" + (this.size - 1), "Product", BigDecimal.TEN, 1);
+		return this.cart;
+	}
+
+	@Benchmark
+	public BigDecimal totalAmount() {
+		return this.cart.getTotalAmount();
+	}
+
+	@Benchmark
+	public CartItemChanges diffItems() {
+		return CartItemChanges.of(this.existingItems, this.currentItems);
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+public final class CartFixtures {
+
+	private static final OffsetDateTime NOW = OffsetDateTime.of(2025, 6, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+	private CartFixtures() {
+	}
+
+	public static Cart cart(int size) {
+		Cart cart = new Cart(UUID.randomUUID(), "user-" + size, NOW, NOW);
+		for (int i = 0; i < size; i++) {
+			cart.addItem(new CartItem(UUID.randomUUID(), cart.getId(), "product-" + i, "Product " + i,
+					new BigDecimal("19.99").add(BigDecimal.valueOf(i)), 1 + i % 5, NOW.plusSeconds(i),
+					NOW.plusSeconds(i)));
+		}
+		return cart;
+	}
+
+	public static CartItem copy(CartItem item) {
+		return new CartItem(item.getId(), item.getCartId(), item.getProductId(), item.getProductName(),
+				item.getPrice(), item.getQuantity(), item.getCreatedAt(), item.getUpdatedAt());
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart.web;
+
+import com.example.cart.CartFixtures;
+import com.example.config.CborConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CartResponseCodecBenchmark {
+
+	@Param({ "json", "cbor" })
+	String format;
+
+	@Param({ "1", "10", "100", "1000" })
+	int size;
+
+	ObjectMapper objectMapper;
+
+	CartController.CartResponse response;
+
+	byte[] payload;
+
+	@Setup
+	public void setUp() throws IOException {
+		// Same settings as the mappers Spring Boot builds for the HTTP endpoints
+		this.objectMapper = "cbor".equals(this.format) ? CborConfig.cborObjectMapper(Jackson2ObjectMapperBuilder.json())
+				: Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+		this.response = new CartController.CartResponse(CartFixtures.cart(this.size));
+		this.payload = this.objectMapper.writeValueAsBytes(this.response);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		return this.objectMapper.writeValueAsBytes(this.response);
+	}
+
+	@Benchmark
+	public CartController.CartResponse deserialize() throws IOException {
+		return this.objectMapper.readValue(this.payload, CartController.CartResponse.class);
+	}
+
+}
@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.springframework.lang.Nullable;
 
 public class Cart {
 
@@ -35,6 +36,11 @@ public class Cart {
 
 	private final List<CartItem> items = new ArrayList<>();
 
+	// The items as last read or written in document storage, null when they are in
+	// cart_items
+	@Nullable
+	private String document;
+
 	public Cart(UUID id, String userId, OffsetDateTime createdAt, OffsetDateTime updatedAt) {
 		this.id = id;
 		this.userId = userId;
@@ -42,6 +48,12 @@ public class Cart {
 		this.updatedAt = updatedAt;
 	}
 
+	// The cart of a user who has none yet. It is not stored until an item is added, so it
+	// has neither an id nor timestamps.
+	public static Cart empty(String userId) {
+		return new Cart(null, userId, null, null);
+	}
+
 	public void addItem(String productId, String productName, BigDecimal price, Integer quantity) {
 		Optional<CartItem> existingItem = findItemByProductId(productId);
 
@@ -123,6 +135,15 @@ public class Cart {
 		return Collections.unmodifiableList(items); // Return defensive copy
 	}
 
+	@Nullable
+	String getDocument() {
+		return document;
+	}
+
+	void setDocument(@Nullable String document) {
+		this.document = document;
+	}
+
 	@Override
 	public String toString() {
 		return "Cart{" + "id=" + id + ", userId='" + userId + '\'' + ", createdAt=" + createdAt + ", updatedAt="
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Service;
+
+// Reads many carts at once for tools that would otherwise read them one by one. It is
+// not transactional like CartService, as the carts may be on several shards.
+@Service
+public class CartBatchReader {
+
+	static final int MAX_BATCH_SIZE = 100;
+
+	private final CartRepository cartRepository;
+
+	public CartBatchReader(CartRepository cartRepository) {
+		this.cartRepository = cartRepository;
+	}
+
+	// Carts by id followed by the latest carts of the users, each cart once
+	public List<Cart> read(List<UUID> cartIds, List<String> userIds) {
+		if (cartIds.size() + userIds.size() > MAX_BATCH_SIZE) {
+			throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " carts can be read at once");
+		}
+		List<Cart> carts = new ArrayList<>(this.cartRepository.findAllByIds(cartIds));
+		Set<UUID> found = carts.stream().map(Cart::getId).collect(Collectors.toSet());
+		this.cartRepository.findAllByUserIds(userIds)
+			.stream()
+			.filter(cart -> found.add(cart.getId()))
+			.forEach(carts::add);
+		return carts;
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+// Pages through the carts in (updated_at, id) order. The cursor is the key of the last
+// change returned, so every page is an index range scan whatever the table size.
+@Service
+@EnableConfigurationProperties(CartChangeFeedProperties.class)
+public class CartChangeFeed {
+
+	private static final OffsetDateTime START = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+	private static final UUID MIN_ID = new UUID(0, 0);
+
+	private final CartRepository cartRepository;
+
+	private final CartChangeFeedProperties properties;
+
+	private final Clock clock;
+
+	public CartChangeFeed(CartRepository cartRepository, CartChangeFeedProperties properties, Clock clock) {
+		this.cartRepository = cartRepository;
+		this.properties = properties;
+		this.clock = clock;
+	}
+
+	public CartChanges changesSince(@Nullable String cursor, @Nullable Integer limit) {
+		int pageSize = (limit != null) ? limit : this.properties.defaultLimit();
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException("Limit must be greater than 0");
+		}
+		pageSize = Math.min(pageSize, this.properties.maxLimit());
+		Key after = (cursor != null) ? decode(cursor) : new Key(START, MIN_ID);
+		// Changes are only returned once transactions that started before them must have
+		// committed, so a consumer never moves its cursor past a change still to come
+		OffsetDateTime settledBefore = OffsetDateTime.now(this.clock).minus(this.properties.settleTime());
+		List<CartChange> changes = this.cartRepository.findChanges(after.updatedAt(), after.cartId(), settledBefore,
+				pageSize + 1);
+		boolean hasMore = changes.size() > pageSize;
+		if (hasMore) {
+			changes = changes.subList(0, pageSize);
+		}
+		String next = changes.isEmpty() ? cursor : encode(changes.get(changes.size() - 1));
+		return new CartChanges(changes, next, hasMore);
+	}
+
+	private static String encode(CartChange change) {
+		String key = change.updatedAt() + "," + change.cartId();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Key decode(String cursor) {
+		try {
+			String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",", 2);
+			if (key.length == 2) {
+				return new Key(OffsetDateTime.parse(key[0]), UUID.fromString(key[1]));
+			}
+		}
+		catch (IllegalArgumentException | DateTimeParseException ex) {
+			// Reported below
+		}
+		throw new IllegalArgumentException("Invalid cursor: " + cursor);
+	}
+
+	private record Key(OffsetDateTime updatedAt, UUID cartId) {
+	}
+
+	public record CartChanges(List<CartChange> changes, @Nullable String next, boolean hasMore) {
+	}
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.Assert;
+
+@ConfigurationProperties("cart.changes")
+public record CartChangeFeedProperties(@DefaultValue("100") int defaultLimit, @DefaultValue("1000") int maxLimit,
+		@DefaultValue("5s") Duration settleTime) {
+
+	public CartChangeFeedProperties {
+		Assert.isTrue(maxLimit > 0, "'cart.changes.max-limit' must be positive");
+		Assert.isTrue(defaultLimit > 0 && defaultLimit <= maxLimit,
+				"'cart.changes.default-limit' must be between 1 and 'cart.changes.max-limit'");
+		Assert.isTrue(!settleTime.isNegative(), "'cart.changes.settle-time' must not be negative");
+	}
+
+}
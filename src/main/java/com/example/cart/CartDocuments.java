@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// The items of a cart stored as a JSON array in carts.items. The mapper is not the web
+// one, so that the stored format does not change with the spring.jackson.* settings.
+final class CartDocuments {
+
+	private static final JsonMapper mapper = JsonMapper.builder()
+		.addModule(new JavaTimeModule())
+		.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+		.build();
+
+	private static final TypeReference<List<StoredItem>> STORED_ITEMS = new TypeReference<>() {
+	};
+
+	private CartDocuments() {
+	}
+
+	static String encode(List<CartItem> items) {
+		try {
+			return mapper.writeValueAsString(items.stream().map(StoredItem::new).toList());
+		}
+		catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Failed to encode cart items", ex);
+		}
+	}
+
+	static List<CartItem> decode(UUID cartId, String document) {
+		try {
+			return mapper.readValue(document, STORED_ITEMS).stream().map(item -> item.toCartItem(cartId)).toList();
+		}
+		catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Failed to decode the items of cart " + cartId, ex);
+		}
+	}
+
+	// Prices are rounded like the cart_items.price column
+	record StoredItem(UUID id, String productId, String productName, BigDecimal price, int quantity,
+			OffsetDateTime createdAt, OffsetDateTime updatedAt) {
+
+		StoredItem(CartItem item) {
+			this(item.getId(), item.getProductId(), item.getProductName(),
+					item.getPrice().setScale(2, RoundingMode.HALF_UP), item.getQuantity(), item.getCreatedAt(),
+					item.getUpdatedAt());
+		}
+
+		CartItem toCartItem(UUID cartId) {
+			return new CartItem(this.id, cartId, this.productId, this.productName, this.price, this.quantity,
+					this.createdAt, this.updatedAt);
+		}
+
+	}
+
+}
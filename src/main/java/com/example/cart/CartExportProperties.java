@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.Assert;
+
+@ConfigurationProperties("cart.export")
+public record CartExportProperties(@DefaultValue("1000") int pageSize, @DefaultValue("500") int fetchSize) {
+
+	public CartExportProperties {
+		Assert.isTrue(pageSize > 0, "'cart.export.page-size' must be positive");
+		Assert.isTrue(fetchSize > 0, "'cart.export.fetch-size' must be positive");
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+import com.example.jdbc.ShardRouter;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Streams every cart with its items, shard by shard in id order. The rows are read
+// through a server-side cursor of fetch-size rows and only the cart being assembled is
+// held in memory. Each page of page-size carts is its own short read-only transaction, as
+// a single cursor over all carts would outlive the DSQL transaction time limit.
+@Service
+@EnableConfigurationProperties(CartExportProperties.class)
+public class CartExporter {
+
+	private static final UUID MIN_ID = new UUID(0, 0);
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ShardRouter shardRouter;
+
+	private final CartExportProperties properties;
+
+	public CartExporter(DataSource dataSource, PlatformTransactionManager transactionManager, ShardRouter shardRouter,
+			CartExportProperties properties) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(properties.fetchSize());
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		this.shardRouter = shardRouter;
+		this.properties = properties;
+	}
+
+	// Returns the number of carts exported
+	public long export(Consumer<Cart> consumer) {
+		long exported = 0;
+		for (int shard = 0; shard < this.shardRouter.shardCount(); shard++) {
+			UUID after = MIN_ID;
+			while (true) {
+				int current = shard;
+				UUID from = after;
+				Page page = this.transactionTemplate
+					.execute(status -> this.shardRouter.callOn(current, () -> exportPage(from, consumer)));
+				exported += page.carts();
+				if (page.carts() < this.properties.pageSize()) {
+					break;
+				}
+				after = page.lastCartId();
+			}
+		}
+		return exported;
+	}
+
+	private Page exportPage(UUID after, Consumer<Cart> consumer) {
+		String sql = """
+				WITH page AS (
+				    SELECT id, user_id, created_at, updated_at, items
+				    FROM carts
+				    WHERE id > ?
+				    ORDER BY id ASC
+				    LIMIT ?
+				)
+				SELECT page.id, page.user_id, page.created_at, page.updated_at, page.items,
+				       i.id AS item_id, i.product_id, i.product_name, i.price, i.quantity,
+				       i.created_at AS item_created_at, i.updated_at AS item_updated_at
+				FROM page
+				LEFT JOIN cart_items i ON i.cart_id = page.id
+				ORDER BY page.id ASC, i.created_at ASC
+				""";
+		PageReader reader = new PageReader(consumer);
+		this.jdbcTemplate.query(sql, reader, after, this.properties.pageSize());
+		return reader.finish();
+	}
+
+	private record Page(int carts, @Nullable UUID lastCartId) {
+	}
+
+	// The rows of a cart are adjacent, so a cart is complete when the next one starts
+	private static class PageReader implements RowCallbackHandler {
+
+		private final Consumer<Cart> consumer;
+
+		@Nullable
+		private Cart cart;
+
+		private int carts;
+
+		PageReader(Consumer<Cart> consumer) {
+			this.consumer = consumer;
+		}
+
+		@Override
+		public void processRow(ResultSet rs) throws SQLException {
+			UUID cartId = rs.getObject("id", UUID.class);
+			if (this.cart == null || !this.cart.getId().equals(cartId)) {
+				flush();
+				this.cart = new Cart(cartId, rs.getString("user_id"), rs.getObject("created_at", OffsetDateTime.class),
+						rs.getObject("updated_at", OffsetDateTime.class));
+				// A document cart has no item rows, see CartRepository
+				String document = rs.getString("items");
+				if (document != null) {
+					CartDocuments.decode(cartId, document).forEach(this.cart::addItem);
+				}
+			}
+			UUID itemId = rs.getObject("item_id", UUID.class);
+			if (itemId != null) {
+				this.cart.addItem(new CartItem(itemId, cartId, rs.getString("product_id"), rs.getString("product_name"),
+						rs.getBigDecimal("price"), rs.getInt("quantity"),
+						rs.getObject("item_created_at", OffsetDateTime.class),
+						rs.getObject("item_updated_at", OffsetDateTime.class)));
+			}
+		}
+
+		Page finish() {
+			UUID lastCartId = (this.cart != null) ? this.cart.getId() : null;
+			flush();
+			return new Page(this.carts, lastCartId);
+		}
+
+		private void flush() {
+			if (this.cart != null) {
+				this.consumer.accept(this.cart);
+				this.cart = null;
+				this.carts++;
+			}
+		}
+
+	}
+
+}
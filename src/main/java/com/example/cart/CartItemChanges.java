@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+record CartItemChanges(List<CartItem> inserts, List<CartItem> updates, List<UUID> deletes) {
+
+	static CartItemChanges of(List<CartItem> existingItems, List<CartItem> currentItems) {
+		Map<UUID, CartItem> existingItemsMap = new HashMap<>(existingItems.size() * 2);
+		for (CartItem existingItem : existingItems) {
+			existingItemsMap.put(existingItem.getId(), existingItem);
+		}
+		List<CartItem> inserts = new ArrayList<>();
+		List<CartItem> updates = new ArrayList<>();
+		Set<UUID> currentItemIds = new HashSet<>(currentItems.size() * 2);
+		for (CartItem currentItem : currentItems) {
+			if (currentItem.getId() == null) {
+				inserts.add(currentItem);
+			}
+			else {
+				currentItemIds.add(currentItem.getId());
+				if (!Objects.equals(currentItem, existingItemsMap.get(currentItem.getId()))) {
+					updates.add(currentItem);
+				}
+			}
+		}
+		List<UUID> deletes = new ArrayList<>();
+		for (CartItem existingItem : existingItems) {
+			if (!currentItemIds.contains(existingItem.getId())) {
+				deletes.add(existingItem.getId());
+			}
+		}
+		return new CartItemChanges(inserts, updates, deletes);
+	}
+
+	boolean isEmpty() {
+		return inserts.isEmpty() && updates.isEmpty() && deletes.isEmpty();
+	}
+
+}
@@ -15,138 +15,285 @@
  */
 package com.example.cart;
 
+import com.example.jdbc.ChunkedMutationProperties;
+import com.example.jdbc.HedgedReads;
+import com.example.jdbc.ShardRouter;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.Clock;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+// Every cart is stored on the shard of its user, see ShardRouter. Lookups by user or cart
+// id go to that shard only, the change feed and the sweeper go through all shards.
+// With cart.storage=document the items of a cart are kept as one JSON document in
+// carts.items instead of cart_items rows. Both layouts are always read, a cart moves to
+// the configured one when it is next saved, unless it has more items than a chunk.
 @Repository
-@RegisterReflectionForBinding(Cart.class)
+@EnableConfigurationProperties({ CartStorageProperties.class, ChunkedMutationProperties.class })
+@RegisterReflectionForBinding({ Cart.class, CartChange.class, CartDocuments.StoredItem.class })
 public class CartRepository {
 
+	// Postgres compares UUIDs as unsigned bytes
+	private static final Comparator<CartChange> CHANGE_ORDER = Comparator
+		.comparing(CartChange::updatedAt, OffsetDateTime.timeLineOrder())
+		.thenComparing(change -> change.cartId().getMostSignificantBits(), Long::compareUnsigned)
+		.thenComparing(change -> change.cartId().getLeastSignificantBits(), Long::compareUnsigned);
+
 	private final JdbcClient jdbcClient;
 
 	private final Clock clock;
 
-	public CartRepository(JdbcClient jdbcClient, Clock clock) {
+	private final HedgedReads hedgedReads;
+
+	private final ShardRouter shardRouter;
+
+	private final boolean documentStorage;
+
+	private final int chunkSize;
+
+	public CartRepository(JdbcClient jdbcClient, Clock clock, HedgedReads hedgedReads, ShardRouter shardRouter,
+			CartStorageProperties props, ChunkedMutationProperties chunkedMutationProperties) {
 		this.jdbcClient = jdbcClient;
 		this.clock = clock;
+		this.hedgedReads = hedgedReads;
+		this.shardRouter = shardRouter;
+		this.documentStorage = props.storage() == CartStorageProperties.Storage.DOCUMENT;
+		this.chunkSize = chunkedMutationProperties.chunkSize();
 	}
 
 	@Transactional
 	public Cart create(String userId) {
 		String sql = """
-				INSERT INTO carts (user_id, created_at, updated_at)
-				VALUES (?, ?, ?)
-				RETURNING id
+				INSERT INTO carts (id, user_id, created_at, updated_at, items)
+				VALUES (?, ?, ?, ?, ?)
 				""";
 
+		int shard = shardRouter.shardOf(userId);
+		UUID id = shardRouter.newCartId(shard);
 		OffsetDateTime now = OffsetDateTime.now(this.clock);
+		String document = this.documentStorage ? CartDocuments.encode(List.of()) : null;
 
-		UUID id = jdbcClient.sql(sql).param(userId).param(now).param(now).query(UUID.class).single();
+		shardRouter.runOn(shard,
+				() -> jdbcClient.sql(sql).param(id).param(userId).param(now).param(now).param(document).update());
 
-		return new Cart(id, userId, now, now);
+		Cart cart = new Cart(id, userId, now, now);
+		cart.setDocument(document);
+		return cart;
 	}
 
+	// The shard is bound within the supplier, as a hedge runs on another thread
 	public Optional<Cart> findById(UUID id) {
+		int shard = shardRouter.shardOf(id);
+		return hedgedReads.read("findById", () -> shardRouter.callOn(shard, () -> loadById(id)));
+	}
+
+	public Optional<Cart> findByUserId(String userId) {
+		int shard = shardRouter.shardOf(userId);
+		return hedgedReads.read("findByUserId", () -> shardRouter.callOn(shard, () -> loadByUserId(userId)));
+	}
+
+	private Optional<Cart> loadById(UUID id) {
 		String cartSql = """
-				SELECT id, user_id, created_at, updated_at
+				SELECT id, user_id, created_at, updated_at, items
 				FROM carts
 				WHERE id = ?
 				""";
 
-		Optional<Cart> cart = jdbcClient.sql(cartSql)
-			.param(id)
-			.query((rs, rowNum) -> new Cart(UUID.fromString(rs.getString("id")), rs.getString("user_id"),
-					rs.getObject("created_at", OffsetDateTime.class), rs.getObject("updated_at", OffsetDateTime.class)))
-			.optional();
-
-		if (cart.isEmpty()) {
-			return Optional.empty();
-		}
-
-		// Load cart items
-		List<CartItem> items = findCartItems(id);
-		Cart cartWithItems = cart.get();
-		items.forEach(cartWithItems::addItem);
-
-		return Optional.of(cartWithItems);
+		return jdbcClient.sql(cartSql).param(id).query(this::mapCart).optional().map(this::loadItems);
 	}
 
-	public Optional<Cart> findByUserId(String userId) {
+	private Optional<Cart> loadByUserId(String userId) {
 		String cartSql = """
-				SELECT id, user_id, created_at, updated_at
+				SELECT id, user_id, created_at, updated_at, items
 				FROM carts
 				WHERE user_id = ?
 				ORDER BY created_at DESC
 				LIMIT 1
 				""";
 
-		Optional<Cart> cart = jdbcClient.sql(cartSql).param(userId).query(Cart.class).optional();
+		return jdbcClient.sql(cartSql).param(userId).query(this::mapCart).optional().map(this::loadItems);
+	}
 
-		if (cart.isEmpty()) {
-			return Optional.empty();
+	// Loads many carts with two statements per shard whatever their number, the headers
+	// and then the items of all of them. Missing carts are left out, the others are in
+	// the order of the ids.
+	public List<Cart> findAllByIds(Collection<UUID> ids) {
+		String sql = """
+				SELECT id, user_id, created_at, updated_at, items
+				FROM carts
+				WHERE id = ANY(?)
+				""";
+		Map<UUID, Cart> carts = new HashMap<>();
+		byShard(ids.stream().distinct().toList()).forEach((shard, shardIds) -> shardRouter.callOn(shard, () -> {
+			List<Cart> found = jdbcClient.sql(sql).param(shardIds.toArray(UUID[]::new)).query(this::mapCart).list();
+			loadAllItems(found).forEach(cart -> carts.put(cart.getId(), cart));
+			return null;
+		}));
+		return ids.stream().distinct().map(carts::get).filter(Objects::nonNull).toList();
+	}
+
+	// The latest cart of each user like findByUserId, users without a cart are left out
+	public List<Cart> findAllByUserIds(Collection<String> userIds) {
+		String sql = """
+				SELECT id, user_id, created_at, updated_at, items
+				FROM carts
+				WHERE user_id = ANY(?)
+				""";
+		Map<String, Cart> carts = new HashMap<>();
+		userIds.stream()
+			.distinct()
+			.collect(Collectors.groupingBy(shardRouter::shardOf))
+			.forEach((shard, shardUserIds) -> shardRouter.callOn(shard, () -> {
+				Map<String, Cart> latest = new HashMap<>();
+				for (Cart cart : jdbcClient.sql(sql)
+					.param(shardUserIds.toArray(String[]::new))
+					.query(this::mapCart)
+					.list()) {
+					latest.merge(cart.getUserId(), cart, (a, b) -> a.getCreatedAt().isAfter(b.getCreatedAt()) ? a : b);
+				}
+				loadAllItems(latest.values()).forEach(cart -> carts.put(cart.getUserId(), cart));
+				return null;
+			}));
+		return userIds.stream().distinct().map(carts::get).filter(Objects::nonNull).toList();
+	}
+
+	private Collection<Cart> loadAllItems(Collection<Cart> carts) {
+		String sql = """
+				SELECT id, cart_id, product_id, product_name, price, quantity, created_at, updated_at
+				FROM cart_items
+				WHERE cart_id = ANY(?)
+				ORDER BY created_at ASC
+				""";
+		UUID[] cartIds = carts.stream()
+			.filter(cart -> cart.getDocument() == null)
+			.map(Cart::getId)
+			.toArray(UUID[]::new);
+		Map<UUID, List<CartItem>> items = (cartIds.length == 0) ? Map.of()
+				: jdbcClient.sql(sql)
+					.param(cartIds)
+					.query(CartItem.class)
+					.stream()
+					.collect(Collectors.groupingBy(CartItem::getCartId));
+		for (Cart cart : carts) {
+			if (cart.getDocument() != null) {
+				CartDocuments.decode(cart.getId(), cart.getDocument()).forEach(cart::addItem);
+			}
+			else {
+				items.getOrDefault(cart.getId(), List.of()).forEach(cart::addItem);
+			}
 		}
+		return carts;
+	}
 
-		// Load cart items
-		List<CartItem> items = findCartItems(cart.get().getId());
-		Cart cartWithItems = cart.get();
-		items.forEach(cartWithItems::addItem);
+	private Cart mapCart(ResultSet rs, int rowNum) throws SQLException {
+		Cart cart = new Cart(rs.getObject("id", UUID.class), rs.getString("user_id"),
+				rs.getObject("created_at", OffsetDateTime.class), rs.getObject("updated_at", OffsetDateTime.class));
+		cart.setDocument(rs.getString("items"));
+		return cart;
+	}
 
-		return Optional.of(cartWithItems);
+	// A document cart has its items in the row already, a relational one needs a second
+	// query
+	private Cart loadItems(Cart cart) {
+		List<CartItem> items = (cart.getDocument() != null) ? CartDocuments.decode(cart.getId(), cart.getDocument())
+				: findCartItems(cart.getId());
+		items.forEach(cart::addItem);
+		return cart;
 	}
 
 	@Transactional
 	public void save(Cart cart) {
-		// Verify cart exists before saving items
-		if (!cartExists(cart.getId())) {
+		shardRouter.runOn(shardRouter.shardOf(cart.getId()), () -> {
+			if (this.documentStorage) {
+				saveDocument(cart);
+			}
+			else {
+				saveItems(cart);
+			}
+		});
+	}
+
+	// Writes all the items at once. A cart whose items are still rows gets them deleted
+	// in the same transaction, which moves it to the document layout. A cart with more
+	// rows than a chunk keeps them, as they could not be deleted in one transaction.
+	private void saveDocument(Cart cart) {
+		boolean migrating = cart.getDocument() == null;
+		List<CartItem> stored = migrating ? findCartItems(cart.getId())
+				: CartDocuments.decode(cart.getId(), cart.getDocument());
+		if (migrating && stored.size() > this.chunkSize) {
+			saveItemRows(cart, stored);
+			return;
+		}
+		CartItemChanges changes = CartItemChanges.of(stored, cart.getItems());
+		if (changes.isEmpty() && !migrating) {
+			return;
+		}
+		OffsetDateTime now = OffsetDateTime.now(this.clock);
+		for (CartItem item : changes.inserts()) {
+			item.setId(UUID.randomUUID());
+			item.setCreatedAt(now);
+			item.setUpdatedAt(now);
+		}
+		changes.updates().forEach(item -> item.setUpdatedAt(now));
+		String document = CartDocuments.encode(cart.getItems());
+		String updateCartSql = """
+				UPDATE carts
+				SET items = ?, updated_at = ?
+				WHERE id = ?
+				""";
+		if (jdbcClient.sql(updateCartSql).param(document).param(now).param(cart.getId()).update() == 0) {
 			throw new IllegalStateException("Cannot save items for non-existent cart: " + cart.getId());
 		}
-		boolean updated = false;
-		// Get existing cart items from DB
-		List<CartItem> existingItems = findCartItems(cart.getId());
-		List<CartItem> currentItems = cart.getItems();
-		// Create maps for efficient lookup
-		Map<UUID, CartItem> existingItemsMap = existingItems.stream()
-			.collect(java.util.stream.Collectors.toMap(CartItem::getId, item -> item));
-		// Process current items: UPDATE existing items or INSERT new items
-		for (CartItem currentItem : currentItems) {
-			if (currentItem.getId() == null) {
-				// INSERT new item
-				insertCartItem(cart.getId(), currentItem);
-				updated = true;
+		if (migrating) {
+			jdbcClient.sql("DELETE FROM cart_items WHERE cart_id = ?").param(cart.getId()).update();
+		}
+		cart.setDocument(document);
+		cart.setUpdatedAt(now);
+	}
+
+	private void saveItems(Cart cart) {
+		if (cart.getDocument() != null) {
+			// Likewise, a document with more items than a chunk is not written back as
+			// rows
+			if (cart.getItems().size() > this.chunkSize) {
+				saveDocument(cart);
 			}
 			else {
-				CartItem existingItem = existingItemsMap.get(currentItem.getId());
-				if (!Objects.equals(currentItem, existingItem)) {
-					// UPDATE existing item
-					updateCartItem(currentItem);
-					updated = true;
-				}
+				moveDocumentToItems(cart);
 			}
+			return;
 		}
-		// DELETE items that exist in DB but not in current items
-		Set<UUID> currentItemIds = currentItems.stream()
-			.map(CartItem::getId)
-			.filter(java.util.Objects::nonNull)
-			.collect(java.util.stream.Collectors.toSet());
-		List<UUID> itemsToDelete = existingItems.stream()
-			.map(CartItem::getId)
-			.filter(id -> !currentItemIds.contains(id))
-			.collect(java.util.stream.Collectors.toList());
-		if (!itemsToDelete.isEmpty()) {
-			deleteCartItems(itemsToDelete);
-			updated = true;
-		}
-		if (updated) {
+		// Verify cart exists before saving items
+		if (!cartExists(cart.getId())) {
+			throw new IllegalStateException("Cannot save items for non-existent cart: " + cart.getId());
+		}
+		// Get existing cart items from DB
+		saveItemRows(cart, findCartItems(cart.getId()));
+	}
+
+	private void saveItemRows(Cart cart, List<CartItem> stored) {
+		// Compare the stored items with the current items
+		CartItemChanges changes = CartItemChanges.of(stored, cart.getItems());
+		// INSERT new items, UPDATE changed items and DELETE removed items
+		changes.inserts().forEach(item -> insertCartItem(cart.getId(), item));
+		changes.updates().forEach(this::updateCartItem);
+		deleteCartItems(changes.deletes());
+		if (!changes.isEmpty()) {
 			// Update cart timestamp
 			String updateCartSql = """
 					UPDATE carts
@@ -159,13 +306,290 @@ public class CartRepository {
 		}
 	}
 
+	// Back to the relational layout, each item keeps its id and timestamps
+	private void moveDocumentToItems(Cart cart) {
+		cart.getItems().forEach(item -> insertCartItem(cart.getId(), item));
+		String updateCartSql = """
+				UPDATE carts
+				SET items = NULL, updated_at = ?
+				WHERE id = ?
+				""";
+		OffsetDateTime updatedAt = OffsetDateTime.now(this.clock);
+		if (jdbcClient.sql(updateCartSql).param(updatedAt).param(cart.getId()).update() == 0) {
+			throw new IllegalStateException("Cannot save items for non-existent cart: " + cart.getId());
+		}
+		cart.setDocument(null);
+		cart.setUpdatedAt(updatedAt);
+	}
+
+	// Adds the items of the source cart to the target cart. Quantities of products in
+	// both carts are summed like Cart.addItem. Relational carts are merged in one
+	// statement whatever their number of items, a document is merged in memory.
+	@Transactional
+	public void mergeItems(Cart source, Cart target) {
+		if (this.documentStorage || source.getDocument() != null || target.getDocument() != null) {
+			source.getItems()
+				.forEach(item -> target.addItem(item.getProductId(), item.getProductName(), item.getPrice(),
+						item.getQuantity()));
+			save(target);
+		}
+		else {
+			mergeItemRows(source.getId(), target.getId());
+		}
+	}
+
+	private int mergeItemRows(UUID sourceCartId, UUID targetCartId) {
+		String mergeSql = """
+				INSERT INTO cart_items (cart_id, product_id, product_name, price, quantity, created_at, updated_at)
+				SELECT :targetCartId, product_id, product_name, price, quantity, :now, :now
+				FROM cart_items
+				WHERE cart_id = :sourceCartId
+				ON CONFLICT (cart_id, product_id)
+				DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity, updated_at = EXCLUDED.updated_at
+				""";
+		String updateCartSql = """
+				UPDATE carts
+				SET updated_at = ?
+				WHERE id = ?
+				""";
+		OffsetDateTime now = OffsetDateTime.now(this.clock);
+		return shardRouter.callOn(shardRouter.shardOf(targetCartId), () -> {
+			int merged = jdbcClient.sql(mergeSql)
+				.param("targetCartId", targetCartId)
+				.param("sourceCartId", sourceCartId)
+				.param("now", now)
+				.update();
+			if (merged > 0) {
+				jdbcClient.sql(updateCartSql).param(now).param(targetCartId).update();
+			}
+			return merged;
+		});
+	}
+
+	// Updates one item of the cart of the user without loading the cart first. Empty when
+	// the item is not a row of that cart, e.g. it belongs to another cart or the items
+	// are a document.
+	@Transactional
+	public Optional<Cart> updateItemQuantity(String userId, UUID itemId, int quantity) {
+		if (this.documentStorage) {
+			return Optional.empty();
+		}
+		String sql = """
+				UPDATE cart_items
+				SET quantity = ?, updated_at = ?
+				WHERE id = ?
+				AND cart_id = (SELECT id FROM carts WHERE user_id = ? ORDER BY created_at DESC LIMIT 1)
+				RETURNING cart_id
+				""";
+		OffsetDateTime now = OffsetDateTime.now(this.clock);
+		return shardRouter.callOn(shardRouter.shardOf(userId),
+				() -> touch(jdbcClient.sql(sql).params(quantity, now, itemId, userId).query(UUID.class).optional(),
+						now));
+	}
+
+	// Deletes one item of the cart of the user without loading the cart first, see
+	// updateItemQuantity
+	@Transactional
+	public Optional<Cart> removeItem(String userId, UUID itemId) {
+		if (this.documentStorage) {
+			return Optional.empty();
+		}
+		String sql = """
+				DELETE FROM cart_items
+				WHERE id = ?
+				AND cart_id = (SELECT id FROM carts WHERE user_id = ? ORDER BY created_at DESC LIMIT 1)
+				RETURNING cart_id
+				""";
+		OffsetDateTime now = OffsetDateTime.now(this.clock);
+		return shardRouter.callOn(shardRouter.shardOf(userId),
+				() -> touch(jdbcClient.sql(sql).params(itemId, userId).query(UUID.class).optional(), now));
+	}
+
+	// Bumps the timestamp of the changed cart and reads it back in the same statement
+	private Optional<Cart> touch(Optional<UUID> cartId, OffsetDateTime now) {
+		String sql = """
+				UPDATE carts
+				SET updated_at = ?
+				WHERE id = ?
+				RETURNING id, user_id, created_at, updated_at, items
+				""";
+		return cartId.map(id -> jdbcClient.sql(sql).params(now, id).query(this::mapCart).single()).map(this::loadItems);
+	}
+
+	// A transaction cannot span shards
+	public boolean isOnSameShard(String userId, String otherUserId) {
+		return shardRouter.shardOf(userId) == shardRouter.shardOf(otherUserId);
+	}
+
 	@Transactional
 	public void deleteById(UUID id) {
-		// Manually cascade delete: Delete cart items first, then cart
-		String deleteItemsSql = "DELETE FROM cart_items WHERE cart_id = ?";
-		jdbcClient.sql(deleteItemsSql).param(id).update();
+		shardRouter.runOn(shardRouter.shardOf(id), () -> {
+			// Manually cascade delete: Delete cart items first, then cart
+			String deleteItemsSql = "DELETE FROM cart_items WHERE cart_id = ?";
+			jdbcClient.sql(deleteItemsSql).param(id).update();
+			String deleteCartSql = "DELETE FROM carts WHERE id = ?";
+			jdbcClient.sql(deleteCartSql).param(id).update();
+		});
+	}
+
+	// Deletes only the header and records the cart as retired in the same transaction.
+	// Its items are left to purgeRetiredCart, and the record lets the sweeper resume a
+	// purge that did not complete.
+	public void retireCart(UUID id) {
 		String deleteCartSql = "DELETE FROM carts WHERE id = ?";
-		jdbcClient.sql(deleteCartSql).param(id).update();
+		String retireSql = """
+				INSERT INTO retired_carts (cart_id, retired_at)
+				VALUES (?, ?)
+				ON CONFLICT DO NOTHING
+				""";
+		OffsetDateTime now = OffsetDateTime.now(this.clock);
+		shardRouter.runOn(shardRouter.shardOf(id), () -> {
+			jdbcClient.sql(deleteCartSql).param(id).update();
+			jdbcClient.sql(retireSql).param(id).param(now).update();
+		});
+	}
+
+	// Deletes a chunk of the items of a retired cart, and its record along with the last
+	// chunk
+	public int purgeRetiredCart(UUID id, int limit) {
+		int deleted = deleteCartItemsChunk(List.of(id), limit);
+		if (deleted < limit) {
+			String sql = "DELETE FROM retired_carts WHERE cart_id = ?";
+			shardRouter.runOn(shardRouter.shardOf(id), () -> jdbcClient.sql(sql).param(id).update());
+		}
+		return deleted;
+	}
+
+	// Fills the chunk shard by shard like findIdleCartIds
+	public List<UUID> findRetiredCartIds(OffsetDateTime retiredBefore, int limit) {
+		String sql = """
+				SELECT cart_id
+				FROM retired_carts
+				WHERE retired_at < ?
+				ORDER BY retired_at ASC
+				LIMIT ?
+				""";
+		List<UUID> cartIds = new ArrayList<>();
+		for (int shard = 0; shard < shardRouter.shardCount() && cartIds.size() < limit; shard++) {
+			int remaining = limit - cartIds.size();
+			cartIds.addAll(shardRouter.callOn(shard,
+					() -> jdbcClient.sql(sql).param(retiredBefore).param(remaining).query(UUID.class).list()));
+		}
+		return cartIds;
+	}
+
+	// Every shard returns its first changes after the cursor, the first of all of them
+	// are the first changes overall
+	public List<CartChange> findChanges(OffsetDateTime updatedAt, UUID id, OffsetDateTime settledBefore, int limit) {
+		if (shardRouter.shardCount() == 1) {
+			return findShardChanges(updatedAt, id, settledBefore, limit);
+		}
+		List<CartChange> changes = new ArrayList<>();
+		for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+			changes.addAll(shardRouter.callOn(shard, () -> findShardChanges(updatedAt, id, settledBefore, limit)));
+		}
+		return changes.stream().sorted(CHANGE_ORDER).limit(limit).toList();
+	}
+
+	private List<CartChange> findShardChanges(OffsetDateTime updatedAt, UUID id, OffsetDateTime settledBefore,
+			int limit) {
+		String sql = """
+				SELECT id AS cart_id, user_id, updated_at
+				FROM carts
+				WHERE (updated_at > :updatedAt OR (updated_at = :updatedAt AND id > :id))
+				AND updated_at < :settledBefore
+				ORDER BY updated_at ASC, id ASC
+				LIMIT :limit
+				""";
+		return jdbcClient.sql(sql)
+			.param("updatedAt", updatedAt)
+			.param("id", id)
+			.param("settledBefore", settledBefore)
+			.param("limit", limit)
+			.query(CartChange.class)
+			.list();
+	}
+
+	// Fills the chunk shard by shard, the oldest carts of each shard first
+	public List<UUID> findIdleCartIds(OffsetDateTime cutoff, int limit) {
+		String sql = """
+				SELECT id
+				FROM carts
+				WHERE updated_at < ?
+				ORDER BY updated_at ASC
+				LIMIT ?
+				""";
+		List<UUID> cartIds = new ArrayList<>();
+		for (int shard = 0; shard < shardRouter.shardCount() && cartIds.size() < limit; shard++) {
+			int remaining = limit - cartIds.size();
+			cartIds.addAll(shardRouter.callOn(shard,
+					() -> jdbcClient.sql(sql).param(cutoff).param(remaining).query(UUID.class).list()));
+		}
+		return cartIds;
+	}
+
+	// Deletes a chunk of the items of the carts that are still idle, see deleteIdleCarts
+	public int deleteIdleCartItemsChunk(List<UUID> cartIds, OffsetDateTime cutoff, int limit) {
+		String sql = """
+				DELETE FROM cart_items
+				WHERE id IN (
+				    SELECT i.id
+				    FROM cart_items i
+				    JOIN carts c ON c.id = i.cart_id
+				    WHERE i.cart_id IN (:cartIds) AND c.updated_at < :cutoff
+				    LIMIT :limit
+				)
+				""";
+		int deleted = 0;
+		for (Map.Entry<Integer, List<UUID>> shardCartIds : byShard(cartIds).entrySet()) {
+			int remaining = limit - deleted;
+			if (remaining <= 0) {
+				break;
+			}
+			deleted += shardRouter.callOn(shardCartIds.getKey(),
+					() -> jdbcClient.sql(sql)
+						.param("cartIds", shardCartIds.getValue())
+						.param("cutoff", cutoff)
+						.param("limit", remaining)
+						.update());
+		}
+		return deleted;
+	}
+
+	public List<UUID> deleteIdleCarts(List<UUID> cartIds, OffsetDateTime cutoff) {
+		// Skip carts that have been updated since they were found
+		String sql = "DELETE FROM carts WHERE id IN (:cartIds) AND updated_at < :cutoff RETURNING id";
+		List<UUID> deleted = new ArrayList<>();
+		byShard(cartIds).forEach((shard,
+				shardCartIds) -> deleted.addAll(shardRouter.callOn(shard,
+						() -> jdbcClient.sql(sql)
+							.param("cartIds", shardCartIds)
+							.param("cutoff", cutoff)
+							.query(UUID.class)
+							.list())));
+		return deleted;
+	}
+
+	public int deleteCartItemsChunk(List<UUID> cartIds, int limit) {
+		String sql = "SELECT id FROM cart_items WHERE cart_id IN (:cartIds) LIMIT :limit";
+		int deleted = 0;
+		for (Map.Entry<Integer, List<UUID>> shardCartIds : byShard(cartIds).entrySet()) {
+			int remaining = limit - deleted;
+			if (remaining <= 0) {
+				break;
+			}
+			deleted += shardRouter.callOn(shardCartIds.getKey(),
+					() -> deleteCartItems(jdbcClient.sql(sql)
+						.param("cartIds", shardCartIds.getValue())
+						.param("limit", remaining)
+						.query(UUID.class)
+						.list()));
+		}
+		return deleted;
+	}
+
+	private Map<Integer, List<UUID>> byShard(List<UUID> cartIds) {
+		return cartIds.stream().collect(Collectors.groupingBy(shardRouter::shardOf));
 	}
 
 	private List<CartItem> findCartItems(UUID cartId) {
@@ -180,24 +604,27 @@ public class CartRepository {
 
 	private void insertCartItem(UUID cartId, CartItem item) {
 		String sql = """
-				INSERT INTO cart_items (cart_id, product_id, product_name, price, quantity, created_at, updated_at)
-				VALUES (?, ?, ?, ?, ?, ?, ?)
-				RETURNING id
+				INSERT INTO cart_items (id, cart_id, product_id, product_name, price, quantity, created_at, updated_at)
+				VALUES (?, ?, ?, ?, ?, ?, ?, ?)
 				""";
+		// An item moved out of a document keeps its id and timestamps
 		OffsetDateTime now = OffsetDateTime.now(this.clock);
-		UUID id = jdbcClient.sql(sql)
+		UUID id = Objects.requireNonNullElseGet(item.getId(), UUID::randomUUID);
+		OffsetDateTime createdAt = Objects.requireNonNullElse(item.getCreatedAt(), now);
+		OffsetDateTime updatedAt = Objects.requireNonNullElse(item.getUpdatedAt(), now);
+		jdbcClient.sql(sql)
+			.param(id)
 			.param(cartId)
 			.param(item.getProductId())
 			.param(item.getProductName())
 			.param(item.getPrice())
 			.param(item.getQuantity())
-			.param(now)
-			.param(now)
-			.query(UUID.class)
-			.single();
+			.param(createdAt)
+			.param(updatedAt)
+			.update();
 		item.setId(id);
-		item.setCreatedAt(now);
-		item.setUpdatedAt(now);
+		item.setCreatedAt(createdAt);
+		item.setUpdatedAt(updatedAt);
 	}
 
 	private void updateCartItem(CartItem item) {
@@ -217,12 +644,12 @@ public class CartRepository {
 		item.setUpdatedAt(now);
 	}
 
-	private void deleteCartItems(List<UUID> itemIds) {
+	private int deleteCartItems(List<UUID> itemIds) {
 		if (itemIds.isEmpty()) {
-			return;
+			return 0;
 		}
 		String sql = "DELETE FROM cart_items WHERE id IN (:itemIds)";
-		jdbcClient.sql(sql).param("itemIds", itemIds).update();
+		return jdbcClient.sql(sql).param("itemIds", itemIds).update();
 	}
 
 	private boolean cartExists(UUID cartId) {
@@ -15,33 +15,72 @@
  */
 package com.example.cart;
 
+import com.example.jdbc.ChunkedMutationExecutor;
+import com.example.jdbc.HedgedReadProperties;
 import java.math.BigDecimal;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @Transactional
+@EnableConfigurationProperties(CartDirectWriteProperties.class)
 @Retryable(retryFor = OptimisticLockingFailureException.class, maxAttempts = 4,
 		backoff = @Backoff(delay = 100, multiplier = 2, random = true))
 public class CartService {
 
 	private final CartRepository cartRepository;
 
-	public CartService(CartRepository cartRepository) {
+	private final ChunkedMutationExecutor chunkedMutationExecutor;
+
+	private final boolean directWrites;
+
+	private final boolean hedgedReads;
+
+	private final TransactionTemplate transactionTemplate;
+
+	public CartService(CartRepository cartRepository, ChunkedMutationExecutor chunkedMutationExecutor,
+			CartDirectWriteProperties directWriteProperties, HedgedReadProperties hedgedReadProperties,
+			PlatformTransactionManager transactionManager) {
 		this.cartRepository = cartRepository;
+		this.chunkedMutationExecutor = chunkedMutationExecutor;
+		this.directWrites = directWriteProperties.enabled();
+		this.hedgedReads = hedgedReadProperties.enabled();
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	// Viewing a cart does not write, the cart is created by the first item added to it
+	@Transactional(propagation = Propagation.SUPPORTS)
+	public Cart getCart(String userId) {
+		return read(() -> cartRepository.findByUserId(userId).orElseGet(() -> Cart.empty(userId)));
 	}
 
+	// Without a transaction, a missing cart is created in a transaction of its own
+	@Transactional(propagation = Propagation.SUPPORTS)
 	public Cart getOrCreateCart(String userId) {
-		return cartRepository.findByUserId(userId).orElseGet(() -> cartRepository.create(userId));
+		return read(() -> cartRepository.findByUserId(userId).orElseGet(() -> cartRepository.create(userId)));
 	}
 
+	@Transactional(propagation = Propagation.SUPPORTS)
 	public Cart getCartById(UUID cartId) {
-		return cartRepository.findById(cartId)
-			.orElseThrow(() -> new IllegalArgumentException("Cart not found with id: " + cartId));
+		return read(() -> cartRepository.findById(cartId)
+			.orElseThrow(() -> new IllegalArgumentException("Cart not found with id: " + cartId)));
+	}
+
+	// Lookups within a transaction are never hedged, so hedged reads load the cart and
+	// its items outside one and may see a concurrent write between the two queries.
+	// Otherwise the cart is read in a single transaction.
+	private <T> T read(Supplier<T> reader) {
+		return hedgedReads ? reader.get() : transactionTemplate.execute(status -> reader.get());
 	}
 
 	public Cart addToCart(String userId, AddToCartRequest request) {
@@ -66,6 +105,15 @@ public class CartService {
 			throw new IllegalArgumentException("Quantity must be greater than 0");
 		}
 
+		// An item that is not a row of the cart of the user is left to the aggregate,
+		// which also tells a missing cart from a missing item
+		if (this.directWrites) {
+			Optional<Cart> updated = cartRepository.updateItemQuantity(userId, itemId, quantity);
+			if (updated.isPresent()) {
+				return updated.get();
+			}
+		}
+
 		Cart cart = findCartByUserId(userId);
 
 		// Verify cart belongs to user
@@ -83,6 +131,13 @@ public class CartService {
 	}
 
 	public Cart removeItemFromCart(String userId, UUID itemId) {
+		if (this.directWrites) {
+			Optional<Cart> updated = cartRepository.removeItem(userId, itemId);
+			if (updated.isPresent()) {
+				return updated.get();
+			}
+		}
+
 		Cart cart = findCartByUserId(userId);
 
 		// Verify cart belongs to user
@@ -99,8 +154,49 @@ public class CartService {
 		return cart;
 	}
 
+	// Moves the items of the source cart, e.g. a guest cart, into the target cart and
+	// deletes the source cart. The number of statements does not depend on the number of
+	// items.
+	public Cart mergeCarts(String sourceUserId, String targetUserId) {
+		if (sourceUserId.equals(targetUserId)) {
+			throw new IllegalArgumentException("Cannot merge a cart into itself");
+		}
+		if (!cartRepository.isOnSameShard(sourceUserId, targetUserId)) {
+			throw new CrossShardMergeException(sourceUserId, targetUserId);
+		}
+
+		Optional<Cart> source = cartRepository.findByUserId(sourceUserId);
+		if (source.isEmpty()) {
+			return cartRepository.findByUserId(targetUserId).orElseGet(() -> Cart.empty(targetUserId));
+		}
+		validateMergeSource(source.get(), chunkedMutationExecutor.chunkSize());
+		Cart target = cartRepository.findByUserId(targetUserId).orElseGet(() -> cartRepository.create(targetUserId));
+
+		cartRepository.mergeItems(source.get(), target);
+		if (isRetiredByMerge(source.get(), chunkedMutationExecutor.chunkSize())) {
+			retire(source.get(), "mergeCarts");
+		}
+		else {
+			cartRepository.deleteById(source.get().getId());
+		}
+
+		return cartRepository.findById(target.getId())
+			.orElseThrow(() -> new IllegalStateException("Cart not found with id: " + target.getId()));
+	}
+
+	// A user without a cart has nothing to clear
 	public void clearCart(String userId) {
-		Cart cart = findCartByUserId(userId);
+		Optional<Cart> found = cartRepository.findByUserId(userId);
+		if (found.isEmpty()) {
+			return;
+		}
+		Cart cart = found.get();
+
+		if (isLarge(cart)) {
+			// Without its header the cart reads as empty once this commits
+			retire(cart, "clearCart");
+			return;
+		}
 
 		// Clear all items using aggregate method
 		cart.clearItems();
@@ -110,11 +206,48 @@ public class CartService {
 	}
 
 	public void deleteCart(String userId) {
-		Cart cart = findCartByUserId(userId);
+		Optional<Cart> found = cartRepository.findByUserId(userId);
+		if (found.isEmpty()) {
+			return;
+		}
+		Cart cart = found.get();
+		if (isLarge(cart)) {
+			retire(cart, "deleteCart");
+			return;
+		}
 		cartRepository.deleteById(cart.getId());
 	}
 
-	private void validateAddToCartRequest(AddToCartRequest request) {
+	// Too many items to delete within a single transaction
+	private boolean isLarge(Cart cart) {
+		return cart.getItems().size() > chunkedMutationExecutor.chunkSize();
+	}
+
+	// Deletes the header within the current transaction and purges the items in chunks
+	// after commit. Nothing reads items without their header, so they are gone for
+	// callers. A purge that fails or is cut short by a restart is resumed by the sweeper.
+	private void retire(Cart cart, String operation) {
+		UUID cartId = cart.getId();
+		cartRepository.retireCart(cartId);
+		chunkedMutationExecutor.executeAfterCommit(operation, cartId,
+				chunkSize -> cartRepository.purgeRetiredCart(cartId, chunkSize));
+	}
+
+	// A merge writes a row per item of the source cart within its transaction, so the
+	// items must fit in a chunk
+	static void validateMergeSource(Cart source, int chunkSize) {
+		if (source.getItems().size() > chunkSize) {
+			throw new IllegalArgumentException("Cannot merge a cart with more than " + chunkSize + " items");
+		}
+	}
+
+	// Deleting the items of the source cart in the merge transaction as well would take
+	// more than a chunk, so they are purged after commit instead
+	static boolean isRetiredByMerge(Cart source, int chunkSize) {
+		return 2 * source.getItems().size() > chunkSize;
+	}
+
+	static void validateAddToCartRequest(AddToCartRequest request) {
 		if (request.quantity() == null || request.quantity() <= 0) {
 			throw new IllegalArgumentException("Quantity must be greater than 0");
 		}
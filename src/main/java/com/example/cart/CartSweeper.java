@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.stereotype.Component;
+
+// Deletes carts that have not been updated for the configured TTL. Every statement runs
+// in its own transaction and touches at most chunk-size rows, so no transaction exceeds
+// the DSQL row limit. Items are deleted before their headers, and only while their cart
+// is still idle, so a run that stops part way leaves idle carts with fewer items that the
+// next run finds again. Every run also resumes the purges of retired carts that did not
+// complete, see CartService.
+@Component
+@ConditionalOnProperty(name = "cart.sweeper.enabled", havingValue = "true")
+@EnableConfigurationProperties(CartSweeperProperties.class)
+public class CartSweeper implements InitializingBean, DisposableBean {
+
+	private final Logger log = LoggerFactory.getLogger(CartSweeper.class);
+
+	private final CartRepository cartRepository;
+
+	private final CartSweeperProperties properties;
+
+	private final SimpleAsyncTaskScheduler taskScheduler;
+
+	private final Clock clock;
+
+	private final Counter deletedCarts;
+
+	private final Counter deletedItems;
+
+	private final Timer runs;
+
+	private final AtomicBoolean running = new AtomicBoolean();
+
+	private ScheduledFuture<?> scheduledSweep;
+
+	private volatile Future<?> currentSweep;
+
+	public CartSweeper(CartRepository cartRepository, CartSweeperProperties properties,
+			SimpleAsyncTaskScheduler taskScheduler, Clock clock, MeterRegistry meterRegistry) {
+		this.cartRepository = cartRepository;
+		this.properties = properties;
+		this.taskScheduler = taskScheduler;
+		this.clock = clock;
+		this.deletedCarts = Counter.builder("cart.sweeper.deleted")
+			.description("Rows deleted by the cart sweeper")
+			.tag("table", "carts")
+			.register(meterRegistry);
+		this.deletedItems = Counter.builder("cart.sweeper.deleted")
+			.description("Rows deleted by the cart sweeper")
+			.tag("table", "cart_items")
+			.register(meterRegistry);
+		this.runs = Timer.builder("cart.sweeper.runs").description("Cart sweeper runs").register(meterRegistry);
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		this.scheduledSweep = this.taskScheduler.scheduleWithFixedDelay(this::startSweep,
+				Instant.now().plus(this.properties.interval()), this.properties.interval());
+	}
+
+	@Override
+	public void destroy() {
+		if (this.scheduledSweep != null) {
+			this.scheduledSweep.cancel(true);
+		}
+		Future<?> sweep = this.currentSweep;
+		if (sweep != null) {
+			sweep.cancel(true);
+		}
+	}
+
+	// All fixed-delay tasks of the scheduler share one thread, e.g. the DSQL token
+	// refresh and the probes of regional endpoints, so the sweep is handed off to a
+	// thread of its own. A run still in progress is not started again.
+	private void startSweep() {
+		if (!this.running.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			this.currentSweep = this.taskScheduler.submit(() -> {
+				try {
+					sweep();
+				}
+				finally {
+					this.running.set(false);
+				}
+			});
+		}
+		catch (RuntimeException e) {
+			this.running.set(false);
+			throw e;
+		}
+	}
+
+	void sweep() {
+		Timer.Sample sample = Timer.start();
+		Instant deadline = Instant.now().plus(this.properties.maxDuration());
+		OffsetDateTime cutoff = OffsetDateTime.now(this.clock).minus(this.properties.ttl());
+		long carts = 0;
+		long items = 0;
+		try {
+			items += resumePurges(deadline);
+			while (Instant.now().isBefore(deadline)) {
+				List<UUID> cartIds = this.cartRepository.findIdleCartIds(cutoff, this.properties.chunkSize());
+				if (cartIds.isEmpty()) {
+					break;
+				}
+				int deleted;
+				do {
+					// The headers are left to the next run, which finds the carts again
+					if (!Instant.now().isBefore(deadline)) {
+						return;
+					}
+					deleted = this.cartRepository.deleteIdleCartItemsChunk(cartIds, cutoff,
+							this.properties.chunkSize());
+					items += deleted;
+					this.deletedItems.increment(deleted);
+					pace(deleted);
+				}
+				while (deleted > 0);
+				List<UUID> deletedCartIds = this.cartRepository.deleteIdleCarts(cartIds, cutoff);
+				carts += deletedCartIds.size();
+				this.deletedCarts.increment(deletedCartIds.size());
+				pace(deletedCartIds.size());
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (RuntimeException e) {
+			log.error("Failed to sweep idle carts", e);
+		}
+		finally {
+			long nanos = sample.stop(this.runs);
+			if (carts > 0 || items > 0) {
+				log.info("Swept {} idle carts and {} items in {} ms", carts, items, nanos / 1_000_000);
+			}
+		}
+	}
+
+	// A purge that started within the last interval may still be running after commit
+	private long resumePurges(Instant deadline) throws InterruptedException {
+		OffsetDateTime retiredBefore = OffsetDateTime.now(this.clock).minus(this.properties.interval());
+		long items = 0;
+		for (UUID cartId : this.cartRepository.findRetiredCartIds(retiredBefore, this.properties.chunkSize())) {
+			int deleted;
+			do {
+				if (!Instant.now().isBefore(deadline)) {
+					return items;
+				}
+				deleted = this.cartRepository.purgeRetiredCart(cartId, this.properties.chunkSize());
+				items += deleted;
+				this.deletedItems.increment(deleted);
+				pace(deleted);
+			}
+			while (deleted >= this.properties.chunkSize());
+		}
+		return items;
+	}
+
+	// Limits the delete rate so that the sweeper does not compete with live traffic
+	private void pace(int rows) throws InterruptedException {
+		if (rows > 0) {
+			Thread.sleep(rows * 1000L / this.properties.rowsPerSecond());
+		}
+	}
+
+}
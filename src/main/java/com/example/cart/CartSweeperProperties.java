@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+import com.example.jdbc.ChunkedMutationProperties;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.Assert;
+
+@ConfigurationProperties("cart.sweeper")
+public record CartSweeperProperties(@DefaultValue("false") boolean enabled, @DefaultValue("30d") Duration ttl,
+		@DefaultValue("10m") Duration interval, @DefaultValue("1m") Duration maxDuration,
+		@DefaultValue("500") int chunkSize, @DefaultValue("1000") int rowsPerSecond) {
+
+	public CartSweeperProperties {
+		Assert.isTrue(chunkSize > 0 && chunkSize <= ChunkedMutationProperties.MAX_ROWS_PER_TRANSACTION,
+				"'cart.sweeper.chunk-size' must be between 1 and "
+						+ ChunkedMutationProperties.MAX_ROWS_PER_TRANSACTION);
+		Assert.isTrue(rowsPerSecond > 0, "'cart.sweeper.rows-per-second' must be positive");
+	}
+
+}
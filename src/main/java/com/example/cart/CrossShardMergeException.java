@@ -0,0 +1,26 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+// The carts of users on different shards cannot be merged, as a transaction cannot span
+// shards
+public class CrossShardMergeException extends RuntimeException {
+
+	public CrossShardMergeException(String sourceUserId, String targetUserId) {
+		super("Carts of users " + sourceUserId + " and " + targetUserId + " are on different shards");
+	}
+
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+import io.r2dbc.spi.Readable;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Non-blocking counterpart of CartRepository, the statements are the same
+@Repository
+@Profile("r2dbc")
+public class ReactiveCartRepository {
+
+	private final DatabaseClient databaseClient;
+
+	private final Clock clock;
+
+	public ReactiveCartRepository(DatabaseClient databaseClient, Clock clock) {
+		this.databaseClient = databaseClient;
+		this.clock = clock;
+	}
+
+	public Mono<Cart> create(String userId) {
+		String sql = """
+				INSERT INTO carts (user_id, created_at, updated_at)
+				VALUES (:userId, :now, :now)
+				RETURNING id
+				""";
+
+		OffsetDateTime now = OffsetDateTime.now(this.clock);
+
+		return databaseClient.sql(sql)
+			.bind("userId", userId)
+			.bind("now", now)
+			.map(row -> row.get("id", UUID.class))
+			.one()
+			.map(id -> new Cart(id, userId, now, now));
+	}
+
+	public Mono<Cart> findById(UUID id) {
+		String cartSql = """
+				SELECT id, user_id, created_at, updated_at
+				FROM carts
+				WHERE id = :id
+				""";
+
+		return databaseClient.sql(cartSql)
+			.bind("id", id)
+			.map(ReactiveCartRepository::cart)
+			.one()
+			.flatMap(this::withItems);
+	}
+
+	public Mono<Cart> findByUserId(String userId) {
+		String cartSql = """
+				SELECT id, user_id, created_at, updated_at
+				FROM carts
+				WHERE user_id = :userId
+				ORDER BY created_at DESC
+				LIMIT 1
+				""";
+
+		return databaseClient.sql(cartSql)
+			.bind("userId", userId)
+			.map(ReactiveCartRepository::cart)
+			.one()
+			.flatMap(this::withItems);
+	}
+
+	public Mono<Void> save(Cart cart) {
+		String cartExistsSql = "SELECT COUNT(*) AS count FROM carts WHERE id = :id";
+		return databaseClient.sql(cartExistsSql)
+			.bind("id", cart.getId())
+			.map(row -> row.get("count", Long.class))
+			.one()
+			.filter(count -> count > 0)
+			.switchIfEmpty(Mono
+				.error(() -> new IllegalStateException("Cannot save items for non-existent cart: " + cart.getId())))
+			.then(findCartItems(cart.getId()).collectList())
+			.map(existingItems -> CartItemChanges.of(existingItems, cart.getItems()))
+			.flatMap(changes -> Flux.fromIterable(changes.inserts())
+				.concatMap(item -> insertCartItem(cart.getId(), item))
+				.thenMany(Flux.fromIterable(changes.updates()).concatMap(this::updateCartItem))
+				.then(deleteCartItems(changes.deletes()))
+				.then(changes.isEmpty() ? Mono.empty() : touch(cart)));
+	}
+
+	// Merges the items in one statement, see CartRepository.mergeItems
+	public Mono<Long> mergeItems(UUID sourceCartId, UUID targetCartId) {
+		String mergeSql = """
+				INSERT INTO cart_items (cart_id, product_id, product_name, price, quantity, created_at, updated_at)
+				SELECT :targetCartId, product_id, product_name, price, quantity, :now, :now
+				FROM cart_items
+				WHERE cart_id = :sourceCartId
+				ON CONFLICT (cart_id, product_id)
+				DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity, updated_at = EXCLUDED.updated_at
+				""";
+		OffsetDateTime now = OffsetDateTime.now(this.clock);
+		return databaseClient.sql(mergeSql)
+			.bind("targetCartId", targetCartId)
+			.bind("sourceCartId", sourceCartId)
+			.bind("now", now)
+			.fetch()
+			.rowsUpdated()
+			.flatMap(merged -> (merged > 0) ? databaseClient.sql("UPDATE carts SET updated_at = :now WHERE id = :id")
+				.bind("now", now)
+				.bind("id", targetCartId)
+				.then()
+				.thenReturn(merged) : Mono.just(merged));
+	}
+
+	public Mono<Void> deleteById(UUID id) {
+		// Manually cascade delete: Delete cart items first, then cart
+		return databaseClient.sql("DELETE FROM cart_items WHERE cart_id = :id")
+			.bind("id", id)
+			.then()
+			.then(databaseClient.sql("DELETE FROM carts WHERE id = :id").bind("id", id).then());
+	}
+
+	// See CartRepository.retireCart, the items are left to
+	// CartRepository.purgeRetiredCart
+	public Mono<Void> retireCart(UUID id) {
+		String retireSql = """
+				INSERT INTO retired_carts (cart_id, retired_at)
+				VALUES (:id, :now)
+				ON CONFLICT DO NOTHING
+				""";
+		return databaseClient.sql("DELETE FROM carts WHERE id = :id")
+			.bind("id", id)
+			.then()
+			.then(databaseClient.sql(retireSql).bind("id", id).bind("now", OffsetDateTime.now(this.clock)).then());
+	}
+
+	private Mono<Cart> withItems(Cart cart) {
+		return findCartItems(cart.getId()).doOnNext(cart::addItem).then(Mono.just(cart));
+	}
+
+	private Flux<CartItem> findCartItems(UUID cartId) {
+		String sql = """
+				SELECT id, cart_id, product_id, product_name, price, quantity, created_at, updated_at
+				FROM cart_items
+				WHERE cart_id = :cartId
+				ORDER BY created_at ASC
+				""";
+		return databaseClient.sql(sql).bind("cartId", cartId).map(ReactiveCartRepository::cartItem).all();
+	}
+
+	private Mono<Void> insertCartItem(UUID cartId, CartItem item) {
+		String sql = """
+				INSERT INTO cart_items (cart_id, product_id, product_name, price, quantity, created_at, updated_at)
+				VALUES (:cartId, :productId, :productName, :price, :quantity, :now, :now)
+				RETURNING id
+				""";
+		OffsetDateTime now = OffsetDateTime.now(this.clock);
+		return databaseClient.sql(sql)
+			.bind("cartId", cartId)
+			.bind("productId", item.getProductId())
+			.bind("productName", item.getProductName())
+			.bind("price", item.getPrice())
+			.bind("quantity", item.getQuantity())
+			.bind("now", now)
+			.map(row -> row.get("id", UUID.class))
+			.one()
+			.doOnNext(id -> {
+				item.setId(id);
+				item.setCreatedAt(now);
+				item.setUpdatedAt(now);
+			})
+			.then();
+	}
+
+	private Mono<Void> updateCartItem(CartItem item) {
+		String sql = """
+				UPDATE cart_items
+				SET product_name = :productName, price = :price, quantity = :quantity, updated_at = :now
+				WHERE id = :id
+				""";
+		OffsetDateTime now = OffsetDateTime.now(this.clock);
+		return databaseClient.sql(sql)
+			.bind("productName", item.getProductName())
+			.bind("price", item.getPrice())
+			.bind("quantity", item.getQuantity())
+			.bind("now", now)
+			.bind("id", item.getId())
+			.then()
+			.doOnSuccess(__ -> item.setUpdatedAt(now));
+	}
+
+	private Mono<Void> deleteCartItems(List<UUID> itemIds) {
+		if (itemIds.isEmpty()) {
+			return Mono.empty();
+		}
+		return databaseClient.sql("DELETE FROM cart_items WHERE id IN (:itemIds)").bind("itemIds", itemIds).then();
+	}
+
+	private Mono<Void> touch(Cart cart) {
+		// Update cart timestamp
+		OffsetDateTime updatedAt = OffsetDateTime.now(this.clock);
+		return databaseClient.sql("UPDATE carts SET updated_at = :updatedAt WHERE id = :id")
+			.bind("updatedAt", updatedAt)
+			.bind("id", cart.getId())
+			.then()
+			.doOnSuccess(__ -> cart.setUpdatedAt(updatedAt));
+	}
+
+	private static Cart cart(Readable row) {
+		return new Cart(row.get("id", UUID.class), row.get("user_id", String.class),
+				row.get("created_at", OffsetDateTime.class), row.get("updated_at", OffsetDateTime.class));
+	}
+
+	private static CartItem cartItem(Readable row) {
+		return new CartItem(row.get("id", UUID.class), row.get("cart_id", UUID.class),
+				row.get("product_id", String.class), row.get("product_name", String.class),
+				row.get("price", BigDecimal.class), row.get("quantity", Integer.class),
+				row.get("created_at", OffsetDateTime.class), row.get("updated_at", OffsetDateTime.class));
+	}
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+import com.example.jdbc.ChunkedMutationExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.R2dbcException;
+import java.time.Duration;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+// Non-blocking counterpart of CartService. Every operation runs in its own transaction and
+// is retried on DSQL optimistic concurrency conflicts like @Retryable does for CartService.
+@Service
+@Profile("r2dbc")
+public class ReactiveCartService {
+
+	// https://catalog.workshops.aws/aurora-dsql/en-US/04-programming-with-aurora-dsql/02-handling-concurrency-conflicts
+	private static final String DSQL_OPTIMISTIC_CONCURRENCY_ERROR_STATE = "40001";
+
+	private final Logger log = LoggerFactory.getLogger(ReactiveCartService.class);
+
+	private final ReactiveCartRepository cartRepository;
+
+	private final CartRepository blockingCartRepository;
+
+	private final ChunkedMutationExecutor chunkedMutationExecutor;
+
+	private final TransactionalOperator transactionalOperator;
+
+	private final MeterRegistry meterRegistry;
+
+	private final Retry retry = Retry.backoff(3, Duration.ofMillis(100))
+		.jitter(0.5)
+		.filter(ReactiveCartService::isConflict)
+		.doBeforeRetry(signal -> log.info("onError: {}", signal))
+		.onRetryExhaustedThrow((spec, signal) -> signal.failure());
+
+	// The R2DBC transaction manager is not a bean so that @Transactional keeps resolving
+	// the JDBC transaction manager
+	public ReactiveCartService(ReactiveCartRepository cartRepository, CartRepository blockingCartRepository,
+			ChunkedMutationExecutor chunkedMutationExecutor, ConnectionFactory connectionFactory,
+			MeterRegistry meterRegistry) {
+		this.cartRepository = cartRepository;
+		this.blockingCartRepository = blockingCartRepository;
+		this.chunkedMutationExecutor = chunkedMutationExecutor;
+		this.transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+		this.meterRegistry = meterRegistry;
+	}
+
+	// Viewing a cart does not write, see CartService.getCart
+	public Mono<Cart> getCart(String userId) {
+		return Mono.defer(() -> cartRepository.findByUserId(userId).defaultIfEmpty(Cart.empty(userId)));
+	}
+
+	public Mono<Cart> getOrCreateCart(String userId) {
+		return transactional("getOrCreateCart", Mono.defer(() -> cartRepository.findByUserId(userId)
+			.switchIfEmpty(Mono.defer(() -> cartRepository.create(userId)))));
+	}
+
+	public Mono<Cart> getCartById(UUID cartId) {
+		return transactional("getCartById", Mono.defer(() -> cartRepository.findById(cartId)
+			.switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Cart not found with id: " + cartId)))));
+	}
+
+	public Mono<Cart> addToCart(String userId, CartService.AddToCartRequest request) {
+		return Mono.fromRunnable(() -> CartService.validateAddToCartRequest(request))
+			.then(transactional("addToCart",
+					Mono.defer(() -> cartRepository.findByUserId(userId)
+						.switchIfEmpty(Mono.defer(() -> cartRepository.create(userId)))
+						.flatMap(cart -> {
+							cart.addItem(request.productId(), request.productName(), request.price(),
+									request.quantity());
+							return cartRepository.save(cart).thenReturn(cart);
+						}))));
+	}
+
+	public Mono<Cart> updateItemQuantity(String userId, UUID itemId, Integer quantity) {
+		if (quantity <= 0) {
+			return Mono.error(new IllegalArgumentException("Quantity must be greater than 0"));
+		}
+		return transactional("updateItemQuantity", Mono.defer(() -> findCartByUserId(userId).flatMap(cart -> {
+			if (!cart.belongsToUser(userId)) {
+				return Mono.error(new IllegalStateException("Cart does not belong to user"));
+			}
+			cart.updateItemQuantity(itemId, quantity);
+			return cartRepository.save(cart).thenReturn(cart);
+		})));
+	}
+
+	public Mono<Cart> removeItemFromCart(String userId, UUID itemId) {
+		return transactional("removeItemFromCart", Mono.defer(() -> findCartByUserId(userId).flatMap(cart -> {
+			if (!cart.belongsToUser(userId)) {
+				return Mono.error(new RuntimeException("Cart does not belong to user"));
+			}
+			cart.removeItem(itemId);
+			return cartRepository.save(cart).thenReturn(cart);
+		})));
+	}
+
+	public Mono<Cart> mergeCarts(String sourceUserId, String targetUserId) {
+		if (sourceUserId.equals(targetUserId)) {
+			return Mono.error(new IllegalArgumentException("Cannot merge a cart into itself"));
+		}
+		return transactional("mergeCarts", Mono.defer(() -> cartRepository.findByUserId(sourceUserId)
+			.flatMap(source -> Mono
+				.fromRunnable(() -> CartService.validateMergeSource(source, chunkedMutationExecutor.chunkSize()))
+				.then(cartRepository.findByUserId(targetUserId))
+				.switchIfEmpty(Mono.defer(() -> cartRepository.create(targetUserId)))
+				.flatMap(target -> cartRepository.mergeItems(source.getId(), target.getId())
+					.then(CartService.isRetiredByMerge(source, chunkedMutationExecutor.chunkSize())
+							? cartRepository.retireCart(source.getId()).thenReturn(source.getId())
+							: cartRepository.deleteById(source.getId()).then(Mono.<UUID>empty()))
+					.map(retiredCartId -> new Merge(target.getId(), retiredCartId))
+					.defaultIfEmpty(new Merge(target.getId(), null))))))
+			.flatMap(merge -> ((merge.retiredCartId() != null) ? purgeItems("mergeCarts", merge.retiredCartId())
+					: Mono.<Void>empty())
+				.then(getCartById(merge.cartId())))
+			.switchIfEmpty(Mono.defer(() -> getCart(targetUserId)));
+	}
+
+	public Mono<Void> clearCart(String userId) {
+		return transactional("clearCart", Mono.defer(() -> cartRepository.findByUserId(userId).flatMap(cart -> {
+			if (isLarge(cart)) {
+				// See CartService.clearCart
+				return cartRepository.retireCart(cart.getId()).thenReturn(cart.getId());
+			}
+			cart.clearItems();
+			return cartRepository.save(cart).then(Mono.<UUID>empty());
+		}))).flatMap(retiredCartId -> purgeItems("clearCart", retiredCartId));
+	}
+
+	public Mono<Void> deleteCart(String userId) {
+		return transactional("deleteCart", Mono.defer(() -> cartRepository.findByUserId(userId).flatMap(cart -> {
+			if (isLarge(cart)) {
+				return cartRepository.retireCart(cart.getId()).thenReturn(cart.getId());
+			}
+			return cartRepository.deleteById(cart.getId()).then(Mono.<UUID>empty());
+		}))).flatMap(retiredCartId -> purgeItems("deleteCart", retiredCartId));
+	}
+
+	private record Merge(UUID cartId, @Nullable UUID retiredCartId) {
+	}
+
+	private Mono<Cart> findCartByUserId(String userId) {
+		return cartRepository.findByUserId(userId)
+			.switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Cart not found for user: " + userId)));
+	}
+
+	private boolean isLarge(Cart cart) {
+		return cart.getItems().size() > chunkedMutationExecutor.chunkSize();
+	}
+
+	// Runs after the transaction has committed, in the background on JDBC
+	private Mono<Void> purgeItems(String operation, UUID cartId) {
+		return Mono.fromRunnable(() -> chunkedMutationExecutor.executeAfterCommit(operation, cartId,
+				chunkSize -> blockingCartRepository.purgeRetiredCart(cartId, chunkSize)));
+	}
+
+	private <T> Mono<T> transactional(String operation, Mono<T> mono) {
+		return transactionalOperator.transactional(mono)
+			.doOnError(throwable -> Counter.builder("retry.errors")
+				.description("Failed attempts of retryable operations")
+				.tag("operation", "ReactiveCartService." + operation)
+				.tag("exception", throwable.getClass().getSimpleName())
+				.register(this.meterRegistry)
+				.increment())
+			.retryWhen(this.retry);
+	}
+
+	// Spring translates 40001 into CannotAcquireLockException, the SQLSTATE is checked to
+	// cover failures at commit as well
+	static boolean isConflict(Throwable throwable) {
+		for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+			if (cause instanceof R2dbcException r2dbcException
+					&& DSQL_OPTIMISTIC_CONCURRENCY_ERROR_STATE.equals(r2dbcException.getSqlState())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -16,14 +16,22 @@
 package com.example.cart.web;
 
 import com.example.cart.Cart;
+import com.example.cart.CartBatchReader;
+import com.example.cart.CartChangeFeed;
+import com.example.cart.CartChangeFeed.CartChanges;
 import com.example.cart.CartItem;
 import com.example.cart.CartService;
+import com.example.cart.CrossShardMergeException;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -33,23 +41,55 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/api/v1/carts")
+@Profile("!r2dbc")
 public class CartController {
 
 	private final CartService cartService;
 
-	public CartController(CartService cartService) {
+	private final CartChangeFeed cartChangeFeed;
+
+	private final CartBatchReader cartBatchReader;
+
+	public CartController(CartService cartService, CartChangeFeed cartChangeFeed, CartBatchReader cartBatchReader) {
 		this.cartService = cartService;
+		this.cartChangeFeed = cartChangeFeed;
+		this.cartBatchReader = cartBatchReader;
 	}
 
 	@GetMapping
 	public ResponseEntity<CartResponse> getCart(@RequestParam String userId) {
-		Cart cart = this.cartService.getOrCreateCart(userId);
+		Cart cart = this.cartService.getCart(userId);
 		return ResponseEntity.ok(new CartResponse(cart));
 	}
 
+	@GetMapping("/changes")
+	public ResponseEntity<CartChanges> getChanges(@RequestParam(required = false) String since,
+			@RequestParam(required = false) Integer limit) {
+		try {
+			return ResponseEntity.ok(this.cartChangeFeed.changesSince(since, limit));
+		}
+		catch (IllegalArgumentException ex) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+		}
+	}
+
+	// Carts by id and the latest carts of users, without duplicates
+	@PostMapping("/batch")
+	public ResponseEntity<List<CartResponse>> getCarts(@RequestBody BatchRequest request) {
+		try {
+			List<Cart> carts = this.cartBatchReader.read(Objects.requireNonNullElse(request.cartIds(), List.of()),
+					Objects.requireNonNullElse(request.userIds(), List.of()));
+			return ResponseEntity.ok(carts.stream().map(CartResponse::new).toList());
+		}
+		catch (IllegalArgumentException ex) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+		}
+	}
+
 	@GetMapping("/{cartId}")
 	public ResponseEntity<CartResponse> getCartById(@PathVariable UUID cartId) {
 		Cart cart = this.cartService.getCartById(cartId);
@@ -76,6 +116,21 @@ public class CartController {
 		return ResponseEntity.ok(new CartResponse(cart));
 	}
 
+	@PostMapping("/merge")
+	public ResponseEntity<CartResponse> mergeCarts(@RequestParam String sourceUserId,
+			@RequestParam String targetUserId) {
+		try {
+			Cart cart = this.cartService.mergeCarts(sourceUserId, targetUserId);
+			return ResponseEntity.ok(new CartResponse(cart));
+		}
+		catch (IllegalArgumentException ex) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+		}
+		catch (CrossShardMergeException ex) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage(), ex);
+		}
+	}
+
 	@DeleteMapping("/items")
 	public ResponseEntity<Map<String, String>> clearCart(@RequestParam String userId) {
 		this.cartService.clearCart(userId);
@@ -108,4 +163,7 @@ public class CartController {
 	public record UpdateQuantityRequest(Integer quantity) {
 	}
 
+	public record BatchRequest(@Nullable List<UUID> cartIds, @Nullable List<String> userIds) {
+	}
+
 }
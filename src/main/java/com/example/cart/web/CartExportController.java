@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart.web;
+
+import com.example.cart.CartExporter;
+import com.example.cart.web.CartController.CartResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Writes one cart per line as it is read, on the request thread, so the export is not cut
+// off by the async request timeout and memory does not grow with the number of carts
+@RestController
+@RequestMapping("/api/v1/admin/carts")
+@Profile("!r2dbc")
+public class CartExportController {
+
+	private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+	private final Logger log = LoggerFactory.getLogger(CartExportController.class);
+
+	private final CartExporter cartExporter;
+
+	private final ObjectWriter objectWriter;
+
+	public CartExportController(CartExporter cartExporter, ObjectMapper objectMapper) {
+		this.cartExporter = cartExporter;
+		this.objectWriter = objectMapper.writerFor(CartResponse.class);
+	}
+
+	@GetMapping("/export")
+	public void exportCarts(
+			@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) @Nullable String acceptEncoding,
+			HttpServletResponse response) throws IOException {
+		boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+		response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (gzip) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		try (OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_SIZE)
+				: response.getOutputStream()) {
+			long exported = this.cartExporter.export(cart -> {
+				try {
+					out.write(this.objectWriter.writeValueAsBytes(new CartResponse(cart)));
+					out.write('\n');
+				}
+				catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			});
+			log.info("Exported {} carts", exported);
+		}
+	}
+
+}
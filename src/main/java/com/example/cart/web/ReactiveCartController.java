@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart.web;
+
+import com.example.cart.CartChangeFeed;
+import com.example.cart.CartChangeFeed.CartChanges;
+import com.example.cart.CartService;
+import com.example.cart.ReactiveCartService;
+import com.example.cart.web.CartController.CartResponse;
+import com.example.cart.web.CartController.UpdateQuantityRequest;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// WebFlux variant of CartController for the r2dbc profile
+@RestController
+@RequestMapping("/api/v1/carts")
+@Profile("r2dbc")
+public class ReactiveCartController {
+
+	private final ReactiveCartService cartService;
+
+	private final CartChangeFeed cartChangeFeed;
+
+	public ReactiveCartController(ReactiveCartService cartService, CartChangeFeed cartChangeFeed) {
+		this.cartService = cartService;
+		this.cartChangeFeed = cartChangeFeed;
+	}
+
+	@GetMapping
+	public Mono<ResponseEntity<CartResponse>> getCart(@RequestParam String userId) {
+		return this.cartService.getCart(userId).map(cart -> ResponseEntity.ok(new CartResponse(cart)));
+	}
+
+	// The feed reads through JDBC, off the event loop
+	@GetMapping("/changes")
+	public Mono<ResponseEntity<CartChanges>> getChanges(@RequestParam(required = false) String since,
+			@RequestParam(required = false) Integer limit) {
+		return Mono.fromCallable(() -> ResponseEntity.ok(this.cartChangeFeed.changesSince(since, limit)))
+			.subscribeOn(Schedulers.boundedElastic())
+			.onErrorMap(IllegalArgumentException.class,
+					ex -> new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex));
+	}
+
+	@GetMapping("/{cartId}")
+	public Mono<ResponseEntity<CartResponse>> getCartById(@PathVariable UUID cartId) {
+		return this.cartService.getCartById(cartId).map(cart -> ResponseEntity.ok(new CartResponse(cart)));
+	}
+
+	@PostMapping("/items")
+	public Mono<ResponseEntity<CartResponse>> addToCart(@RequestParam String userId,
+			@RequestBody CartService.AddToCartRequest request) {
+		return this.cartService.addToCart(userId, request).map(cart -> ResponseEntity.ok(new CartResponse(cart)));
+	}
+
+	@PatchMapping("/items/{itemId}")
+	public Mono<ResponseEntity<CartResponse>> updateItemQuantity(@PathVariable UUID itemId, @RequestParam String userId,
+			@RequestBody UpdateQuantityRequest request) {
+		return this.cartService.updateItemQuantity(userId, itemId, request.quantity())
+			.map(cart -> ResponseEntity.ok(new CartResponse(cart)));
+	}
+
+	@DeleteMapping("/items/{itemId}")
+	public Mono<ResponseEntity<CartResponse>> removeItemFromCart(@PathVariable UUID itemId,
+			@RequestParam String userId) {
+		return this.cartService.removeItemFromCart(userId, itemId)
+			.map(cart -> ResponseEntity.ok(new CartResponse(cart)));
+	}
+
+	@PostMapping("/merge")
+	public Mono<ResponseEntity<CartResponse>> mergeCarts(@RequestParam String sourceUserId,
+			@RequestParam String targetUserId) {
+		return this.cartService.mergeCarts(sourceUserId, targetUserId)
+			.map(cart -> ResponseEntity.ok(new CartResponse(cart)))
+			.onErrorMap(IllegalArgumentException.class,
+					ex -> new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex));
+	}
+
+	@DeleteMapping("/items")
+	public Mono<ResponseEntity<Map<String, String>>> clearCart(@RequestParam String userId) {
+		return this.cartService.clearCart(userId)
+			.thenReturn(ResponseEntity.ok(Map.of("message", "Cart cleared successfully")));
+	}
+
+	@DeleteMapping
+	public Mono<ResponseEntity<Map<String, String>>> deleteCart(@RequestParam String userId) {
+		return this.cartService.deleteCart(userId)
+			.thenReturn(ResponseEntity.ok(Map.of("message", "Cart deleted successfully")));
+	}
+
+}
@@ -16,8 +16,10 @@
 package com.example.config;
 
 import java.time.Clock;
+import org.springframework.boot.task.SimpleAsyncTaskSchedulerBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
 
 @Configuration(proxyBeanMethods = false)
 public class AppConfig {
@@ -27,4 +29,9 @@ public class AppConfig {
 		return Clock.systemDefaultZone();
 	}
 
+	@Bean
+	SimpleAsyncTaskScheduler taskScheduler(SimpleAsyncTaskSchedulerBuilder builder) {
+		return builder.build();
+	}
+
 }
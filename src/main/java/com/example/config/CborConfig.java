@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import java.util.Map;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Serves application/cbor to clients that ask for it; JSON stays the default
+@Configuration(proxyBeanMethods = false)
+public class CborConfig {
+
+	// Timestamps are written as epoch seconds with nanoseconds and BigDecimal as a CBOR
+	// decimal fraction (tag 4), both as numbers instead of strings
+	public static ObjectMapper cborObjectMapper(Jackson2ObjectMapperBuilder builder) {
+		return builder.createXmlMapper(false)
+			.factory(new CBORFactory())
+			.featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS,
+					SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+			.build();
+	}
+
+	// Replaces the default CBOR converter, which comes after the JSON one
+	@Bean
+	MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+		return new MappingJackson2CborHttpMessageConverter(cborObjectMapper(builder));
+	}
+
+	// Custom codecs take precedence over the default ones, so the JSON encoder is
+	// registered again ahead of the CBOR one to stay the default
+	@Bean
+	CodecCustomizer cborCodecCustomizer(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder builder) {
+		ObjectMapper cborObjectMapper = cborObjectMapper(builder);
+		return configurer -> {
+			configurer.customCodecs().register(new Jackson2JsonEncoder(objectMapper));
+			configurer.customCodecs().register(new MonoCborEncoder(cborObjectMapper));
+			configurer.customCodecs().register(new Jackson2CborDecoder(cborObjectMapper, MediaType.APPLICATION_CBOR));
+		};
+	}
+
+	// Jackson2CborEncoder only encodes single values, but the message writer hands
+	// every body over as a stream
+	static class MonoCborEncoder extends Jackson2CborEncoder {
+
+		MonoCborEncoder(ObjectMapper objectMapper) {
+			super(objectMapper, MediaType.APPLICATION_CBOR);
+		}
+
+		@Override
+		public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+				ResolvableType elementType, @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+			if (inputStream instanceof Mono<?> mono) {
+				return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+			}
+			return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+		}
+
+	}
+
+}
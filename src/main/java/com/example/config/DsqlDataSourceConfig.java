@@ -15,6 +15,7 @@
  */
 package com.example.config;
 
+import com.example.jfr.TokenRefreshEvent;
 import com.zaxxer.hikari.HikariDataSource;
 import com.zaxxer.hikari.SQLExceptionOverride;
 import java.sql.SQLException;
@@ -28,9 +29,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.aot.hint.ExecutableMode;
 import org.springframework.aot.hint.RuntimeHintsRegistrar;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.boot.task.SimpleAsyncTaskSchedulerBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.ImportRuntimeHints;
@@ -54,9 +55,9 @@ import software.amazon.awssdk.services.sso.auth.SsoProfileCredentialsProviderFac
 @ImportRuntimeHints(DsqlDataSourceConfig.RuntimeHints.class)
 public class DsqlDataSourceConfig {
 
-	private final Logger logger = LoggerFactory.getLogger(DsqlDataSourceConfig.class);
+	private static final Logger logger = LoggerFactory.getLogger(DsqlDataSourceConfig.class);
 
-	private final Duration tokenTtl = Duration.ofMinutes(60);
+	private static final Duration TOKEN_TTL = Duration.ofMinutes(60);
 
 	@Bean
 	@ConfigurationProperties("spring.datasource")
@@ -67,23 +68,32 @@ public class DsqlDataSourceConfig {
 	@Bean
 	Supplier<String> dsqlTokenSupplier(DataSourceProperties dsqlDataSourceProperties,
 			AwsRegionProvider awsRegionProvider, AwsCredentialsProvider credentialsProvider) {
+		return tokenSupplier(dsqlDataSourceProperties.getUrl(), dsqlDataSourceProperties.getUsername(),
+				awsRegionProvider, credentialsProvider);
+	}
+
+	static Supplier<String> tokenSupplier(String url, String username, AwsRegionProvider awsRegionProvider,
+			AwsCredentialsProvider credentialsProvider) {
 		Region region = awsRegionProvider.getRegion();
 		DsqlUtilities utilities = DsqlUtilities.builder()
 			.region(region)
 			.credentialsProvider(credentialsProvider)
 			.build();
-		String username = dsqlDataSourceProperties.getUsername();
-		String hostname = dsqlDataSourceProperties.getUrl().split("/")[2];
+		String hostname = url.split("/")[2];
 		return () -> {
 			Consumer<GenerateAuthTokenRequest.Builder> request = builder -> builder.hostname(hostname)
 				.region(region)
-				.expiresIn(tokenTtl);
+				.expiresIn(TOKEN_TTL);
 			return "admin".equals(username) ? utilities.generateDbConnectAdminAuthToken(request)
 					: utilities.generateDbConnectAuthToken(request);
 		};
 	}
 
+	// Every shard or regional endpoint has a data source of its own, see
+	// ShardingDataSourceConfig and RegionalDataSourceConfig
 	@Bean
+	@ConditionalOnProperty(name = { "sharding.enabled", "regional-endpoints.enabled" }, havingValue = "false",
+			matchIfMissing = true)
 	@ConfigurationProperties("spring.datasource.hikari")
 	HikariDataSource dsqlDataSource(DataSourceProperties dsqlDataSourceProperties, Supplier<String> dsqlTokenSupplier) {
 		HikariDataSource dataSource = dsqlDataSourceProperties.initializeDataSourceBuilder()
@@ -112,24 +122,31 @@ public class DsqlDataSourceConfig {
 	}
 
 	@Bean
-	SimpleAsyncTaskScheduler taskScheduler(SimpleAsyncTaskSchedulerBuilder builder) {
-		return builder.build();
-	}
-
-	@Bean
+	@ConditionalOnProperty(name = { "sharding.enabled", "regional-endpoints.enabled" }, havingValue = "false",
+			matchIfMissing = true)
 	InitializingBean tokenRefresher(DataSource dataSource, Supplier<String> dsqlTokenSupplier,
 			SimpleAsyncTaskScheduler taskScheduler) throws Exception {
 		HikariDataSource hikariDataSource = dataSource.unwrap(HikariDataSource.class);
-		Duration interval = tokenTtl.dividedBy(2);
-		return () -> taskScheduler.scheduleWithFixedDelay(() -> {
+		return () -> scheduleTokenRefresh(hikariDataSource, dsqlTokenSupplier, taskScheduler);
+	}
+
+	static void scheduleTokenRefresh(HikariDataSource hikariDataSource, Supplier<String> tokenSupplier,
+			SimpleAsyncTaskScheduler taskScheduler) {
+		Duration interval = TOKEN_TTL.dividedBy(2);
+		taskScheduler.scheduleWithFixedDelay(() -> {
+			TokenRefreshEvent event = new TokenRefreshEvent();
+			event.begin();
 			try {
-				String token = dsqlTokenSupplier.get();
+				String token = tokenSupplier.get();
 				hikariDataSource.getHikariConfigMXBean().setPassword(token);
 				hikariDataSource.getHikariPoolMXBean().softEvictConnections();
 			}
 			catch (RuntimeException e) {
-				logger.error("Failed to refresh DSQL token", e);
+				event.exception = e.getClass().getName();
+				logger.error("Failed to refresh DSQL token for {}", hikariDataSource.getPoolName(), e);
 			}
+			event.pool = hikariDataSource.getPoolName();
+			event.commit();
 		}, Instant.now().plusSeconds(interval.toSeconds()), interval);
 	}
 
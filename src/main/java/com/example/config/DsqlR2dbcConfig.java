@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.client.SSLMode;
+import java.net.URI;
+import java.util.function.Supplier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// Connects R2DBC to the same DSQL cluster as the JDBC data source
+@Configuration(proxyBeanMethods = false)
+@Profile("r2dbc & !testcontainers")
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class DsqlR2dbcConfig {
+
+	@Bean(destroyMethod = "dispose")
+	ConnectionPool connectionFactory(DataSourceProperties dsqlDataSourceProperties, Supplier<String> dsqlTokenSupplier,
+			R2dbcProperties r2dbcProperties) {
+		// jdbc:postgresql://host/database?...
+		URI uri = URI.create(dsqlDataSourceProperties.getUrl().substring("jdbc:".length()));
+		PostgresqlConnectionConfiguration configuration = PostgresqlConnectionConfiguration.builder()
+			.host(uri.getHost())
+			.database(uri.getPath().substring(1))
+			.username(dsqlDataSourceProperties.getUsername())
+			// A fresh token per physical connection, generated off the event loop
+			.password(Mono.fromSupplier(() -> (CharSequence) dsqlTokenSupplier.get())
+				.subscribeOn(Schedulers.boundedElastic()))
+			.sslMode(SSLMode.VERIFY_FULL)
+			.build();
+		R2dbcProperties.Pool pool = r2dbcProperties.getPool();
+		return new ConnectionPool(ConnectionPoolConfiguration.builder(new PostgresqlConnectionFactory(configuration))
+			.initialSize(pool.getInitialSize())
+			.maxSize(pool.getMaxSize())
+			.maxIdleTime(pool.getMaxIdleTime())
+			.maxLifeTime(pool.getMaxLifeTime())
+			.maxAcquireTime(pool.getMaxAcquireTime())
+			.build());
+	}
+
+}
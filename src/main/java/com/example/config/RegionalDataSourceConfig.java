@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.config;
+
+import com.example.jdbc.RegionalEndpointsProperties;
+import com.example.jdbc.RegionalRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.regions.providers.AwsRegionProvider;
+
+// Replaces the single data source with one pool per endpoint of peered clusters, see
+// RegionalRoutingDataSource. Every pool takes the spring.datasource.hikari settings and
+// authenticates with a DSQL token signed for the region of its endpoint unless a
+// password is configured. A second pool of one connection per endpoint serves the
+// probes. Peered clusters share their data, so the schema is applied through whichever
+// endpoint is current.
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "regional-endpoints.enabled", havingValue = "true")
+@EnableConfigurationProperties(RegionalEndpointsProperties.class)
+public class RegionalDataSourceConfig {
+
+	@Bean
+	RegionalRoutingDataSource regionalDataSource(RegionalEndpointsProperties properties, Environment environment,
+			ObjectProvider<AwsRegionProvider> awsRegionProvider,
+			ObjectProvider<AwsCredentialsProvider> credentialsProvider, ObjectProvider<MeterRegistry> meterRegistry) {
+		Assert.state(!environment.getProperty("sharding.enabled", Boolean.class, false),
+				"Regional endpoints cannot be combined with sharding");
+		List<RegionalRoutingDataSource.Endpoint> endpoints = new ArrayList<>();
+		for (RegionalEndpointsProperties.Endpoint endpoint : properties.endpoints()) {
+			HikariDataSource dataSource = pool(endpoint, "region-" + endpoint.name(), environment, awsRegionProvider,
+					credentialsProvider);
+			meterRegistry.ifAvailable(
+					registry -> dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+			HikariDataSource probeDataSource = pool(endpoint, "region-" + endpoint.name() + "-probe", environment,
+					awsRegionProvider, credentialsProvider);
+			probeDataSource.setMaximumPoolSize(1);
+			probeDataSource.setMinimumIdle(1);
+			endpoints.add(new RegionalRoutingDataSource.Endpoint(endpoint.name(), dataSource, probeDataSource));
+		}
+		return new RegionalRoutingDataSource(endpoints, properties);
+	}
+
+	private static HikariDataSource pool(RegionalEndpointsProperties.Endpoint endpoint, String poolName,
+			Environment environment, ObjectProvider<AwsRegionProvider> awsRegionProvider,
+			ObjectProvider<AwsCredentialsProvider> credentialsProvider) {
+		HikariDataSource dataSource = new HikariDataSource();
+		Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+		dataSource.setPoolName(poolName);
+		dataSource.setJdbcUrl(endpoint.url());
+		dataSource.setUsername(endpoint.username());
+		dataSource.setPassword(StringUtils.hasText(endpoint.password()) ? endpoint.password()
+				: tokenSupplier(endpoint, awsRegionProvider, credentialsProvider).get());
+		dataSource.setExceptionOverrideClassName(DsqlDataSourceConfig.DsqlExceptionOverride.class.getName());
+		return dataSource;
+	}
+
+	@Bean
+	InitializingBean regionalEndpointMonitor(DataSource regionalDataSource, RegionalEndpointsProperties properties,
+			ObjectProvider<AwsRegionProvider> awsRegionProvider,
+			ObjectProvider<AwsCredentialsProvider> credentialsProvider, SimpleAsyncTaskScheduler taskScheduler)
+			throws SQLException {
+		RegionalRoutingDataSource routingDataSource = regionalDataSource.unwrap(RegionalRoutingDataSource.class);
+		return () -> {
+			List<RegionalRoutingDataSource.Endpoint> endpoints = routingDataSource.getEndpoints();
+			for (int i = 0; i < endpoints.size(); i++) {
+				RegionalEndpointsProperties.Endpoint endpoint = properties.endpoints().get(i);
+				if (!StringUtils.hasText(endpoint.password())) {
+					Supplier<String> tokenSupplier = tokenSupplier(endpoint, awsRegionProvider, credentialsProvider);
+					DsqlDataSourceConfig.scheduleTokenRefresh(endpoints.get(i).getDataSource(), tokenSupplier,
+							taskScheduler);
+					DsqlDataSourceConfig.scheduleTokenRefresh(endpoints.get(i).getProbeDataSource(), tokenSupplier,
+							taskScheduler);
+				}
+			}
+			taskScheduler.scheduleWithFixedDelay(routingDataSource::probe, Instant.now(), properties.probeInterval());
+		};
+	}
+
+	private static Supplier<String> tokenSupplier(RegionalEndpointsProperties.Endpoint endpoint,
+			ObjectProvider<AwsRegionProvider> awsRegionProvider,
+			ObjectProvider<AwsCredentialsProvider> credentialsProvider) {
+		AwsRegionProvider regionProvider = (endpoint.region() != null) ? () -> Region.of(endpoint.region())
+				: awsRegionProvider.getObject();
+		return DsqlDataSourceConfig.tokenSupplier(endpoint.url(), endpoint.username(), regionProvider,
+				credentialsProvider.getObject());
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.config;
+
+import com.example.jdbc.SchemaIndexHealthIndicator;
+import com.example.jdbc.SchemaIndexProperties;
+import com.example.jdbc.ShardRoutingDataSource;
+import com.example.jdbc.VersionedSchemaInitializer;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+
+// Replaces the schema initialization of Spring Boot with VersionedSchemaInitializer and
+// gates the readiness probe on the asynchronously built indexes. With sharding, the
+// schema is applied by ShardingDataSourceConfig and the indexes are checked on every
+// shard.
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties({ SqlInitializationProperties.class, SchemaIndexProperties.class })
+public class SchemaConfig {
+
+	@Bean
+	@ConditionalOnProperty(name = "sharding.enabled", havingValue = "false", matchIfMissing = true)
+	VersionedSchemaInitializer dataSourceScriptDatabaseInitializer(DataSource dataSource,
+			SqlInitializationProperties properties) {
+		return new VersionedSchemaInitializer(dataSource, properties);
+	}
+
+	@Bean
+	SchemaIndexHealthIndicator schemaIndexHealthIndicator(DataSource dataSource,
+			ObjectProvider<ShardRoutingDataSource> shardRoutingDataSource, SchemaIndexProperties properties,
+			SimpleAsyncTaskScheduler taskScheduler) {
+		ShardRoutingDataSource shards = shardRoutingDataSource.getIfAvailable();
+		List<? extends DataSource> clusters = (shards != null) ? shards.getShards() : List.of(dataSource);
+		return new SchemaIndexHealthIndicator(clusters, properties, taskScheduler);
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.config;
+
+import com.example.jdbc.ShardRouter;
+import com.example.jdbc.ShardRoutingDataSource;
+import com.example.jdbc.ShardingProperties;
+import com.example.jdbc.VersionedSchemaInitializer;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.regions.providers.AwsRegionProvider;
+
+// Replaces the single data source with one pool per shard. Every pool takes the
+// spring.datasource.hikari settings and authenticates with a DSQL token of its own
+// cluster unless a password is configured.
+//
+// The application uses shardedDataSource, which fetches a connection on its first
+// statement, once the repository has bound the shard. A transaction therefore runs on
+// the shard of its first statement although it begins before the shard is known. Only
+// the routing data source is instrumented by datasource-proxy, as the instrumentation
+// reads the metadata of each new connection.
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(SqlInitializationProperties.class)
+public class ShardingDataSourceConfig {
+
+	@Bean
+	ShardRoutingDataSource shardRoutingDataSource(ShardingProperties shardingProperties, ShardRouter shardRouter,
+			Environment environment, ObjectProvider<AwsRegionProvider> awsRegionProvider,
+			ObjectProvider<AwsCredentialsProvider> credentialsProvider, ObjectProvider<MeterRegistry> meterRegistry) {
+		List<HikariDataSource> shards = new ArrayList<>();
+		for (ShardingProperties.Shard shard : shardingProperties.shards()) {
+			HikariDataSource dataSource = new HikariDataSource();
+			Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+			dataSource.setPoolName("shard-" + shards.size());
+			dataSource.setJdbcUrl(shard.url());
+			dataSource.setUsername(shard.username());
+			dataSource.setPassword(StringUtils.hasText(shard.password()) ? shard.password()
+					: DsqlDataSourceConfig
+						.tokenSupplier(shard.url(), shard.username(), awsRegionProvider.getObject(),
+								credentialsProvider.getObject())
+						.get());
+			dataSource.setExceptionOverrideClassName(DsqlDataSourceConfig.DsqlExceptionOverride.class.getName());
+			meterRegistry.ifAvailable(
+					registry -> dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+			shards.add(dataSource);
+		}
+		return new ShardRoutingDataSource(shardRouter, shards);
+	}
+
+	@Bean
+	@Primary
+	LazyConnectionDataSourceProxy shardedDataSource(DataSource shardRoutingDataSource) {
+		return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+	}
+
+	@Bean
+	InitializingBean shardTokenRefresher(DataSource shardRoutingDataSource, ShardingProperties shardingProperties,
+			ObjectProvider<AwsRegionProvider> awsRegionProvider,
+			ObjectProvider<AwsCredentialsProvider> credentialsProvider, SimpleAsyncTaskScheduler taskScheduler)
+			throws SQLException {
+		List<HikariDataSource> shards = shardRoutingDataSource.unwrap(ShardRoutingDataSource.class).getShards();
+		return () -> {
+			for (int i = 0; i < shards.size(); i++) {
+				ShardingProperties.Shard shard = shardingProperties.shards().get(i);
+				if (!StringUtils.hasText(shard.password())) {
+					DsqlDataSourceConfig.scheduleTokenRefresh(shards.get(i),
+							DsqlDataSourceConfig.tokenSupplier(shard.url(), shard.username(),
+									awsRegionProvider.getObject(), credentialsProvider.getObject()),
+							taskScheduler);
+				}
+			}
+		};
+	}
+
+	// Applies the schema to every shard, each of which records its own schema version
+	@Bean
+	VersionedSchemaInitializer shardedDataSourceScriptDatabaseInitializer(DataSource shardRoutingDataSource,
+			SqlInitializationProperties properties, ShardRouter shardRouter) {
+		return new VersionedSchemaInitializer(shardRoutingDataSource, properties) {
+			@Override
+			protected void runScripts(Scripts scripts) {
+				for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+					shardRouter.runOn(shard, () -> super.runScripts(scripts));
+				}
+			}
+		};
+	}
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.idempotency;
+
+import com.example.idempotency.IdempotencyStore.Claim;
+import com.example.idempotency.IdempotencyStore.StoredResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+// Answers a repeated cart mutation with the response of the first one instead of applying
+// it again. The key is bound to a fingerprint of the request, which includes the
+// negotiated formats, and only successful responses are stored, so that a failed request
+// can be retried with the same key.
+@Component
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+	public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+	public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
+	private static final int MAX_KEY_LENGTH = 255;
+
+	private final IdempotencyStore store;
+
+	private final MeterRegistry meterRegistry;
+
+	public IdempotencyFilter(IdempotencyStore store, MeterRegistry meterRegistry) {
+		this.store = store;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		HttpMethod method = HttpMethod.valueOf(request.getMethod());
+		return request.getHeader(IDEMPOTENCY_KEY) == null || !request.getRequestURI().startsWith("/api/v1/carts")
+				|| method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String key = request.getHeader(IDEMPOTENCY_KEY);
+		if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+			response.sendError(HttpStatus.BAD_REQUEST.value(),
+					IDEMPOTENCY_KEY + " must have 1 to " + MAX_KEY_LENGTH + " characters");
+			return;
+		}
+		byte[] body = request.getInputStream().readAllBytes();
+		Claim claim = this.store.claim(key, fingerprint(request, body));
+		count(claim.status().name().toLowerCase());
+		switch (claim.status()) {
+			case IN_PROGRESS -> response.sendError(HttpStatus.CONFLICT.value(),
+					"A request with the same " + IDEMPOTENCY_KEY + " is in progress");
+			case MISMATCH -> response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+					IDEMPOTENCY_KEY + " has already been used for a different request");
+			case COMPLETED -> replay(claim.response(), response);
+			case CLAIMED -> proceed(key, new CachedBodyRequest(request, body), response, filterChain);
+		}
+	}
+
+	private void proceed(String key, HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+		boolean completed = false;
+		try {
+			filterChain.doFilter(request, responseWrapper);
+			if (HttpStatus.valueOf(responseWrapper.getStatus()).is2xxSuccessful()) {
+				this.store.complete(key, new StoredResponse(responseWrapper.getStatus(),
+						responseWrapper.getContentType(), responseWrapper.getContentAsByteArray()));
+				completed = true;
+			}
+		}
+		finally {
+			if (!completed) {
+				this.store.release(key);
+			}
+			responseWrapper.copyBodyToResponse();
+		}
+	}
+
+	private void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+		response.setStatus(stored.status());
+		if (stored.contentType() != null) {
+			response.setContentType(stored.contentType());
+		}
+		response.setHeader(IDEMPOTENT_REPLAYED, "true");
+		response.setContentLength(stored.body().length);
+		response.getOutputStream().write(stored.body());
+	}
+
+	private void count(String outcome) {
+		Counter.builder("idempotency.requests")
+			.description("Requests with an idempotency key")
+			.tag("outcome", outcome)
+			.register(this.meterRegistry)
+			.increment();
+	}
+
+	private static String fingerprint(HttpServletRequest request, byte[] body) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update((request.getMethod() + " " + request.getRequestURI() + "?" + request.getQueryString() + "\n"
+					+ HttpHeaders.ACCEPT + ": " + request.getHeader(HttpHeaders.ACCEPT) + "\n"
+					+ HttpHeaders.CONTENT_TYPE + ": " + request.getContentType() + "\n")
+				.getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest.digest(body));
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	// Lets the application read the body that has been read for the fingerprint
+	private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+		private final byte[] body;
+
+		CachedBodyRequest(HttpServletRequest request, byte[] body) {
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			ByteArrayInputStream input = new ByteArrayInputStream(this.body);
+			return new ServletInputStream() {
+
+				@Override
+				public int read() {
+					return input.read();
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) {
+					return input.read(b, off, len);
+				}
+
+				@Override
+				public boolean isFinished() {
+					return input.available() == 0;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				// The body is in memory, so it is available at once and never blocks
+				@Override
+				public void setReadListener(ReadListener listener) {
+					try {
+						if (!isFinished()) {
+							listener.onDataAvailable();
+						}
+						if (isFinished()) {
+							listener.onAllDataRead();
+						}
+					}
+					catch (IOException ex) {
+						listener.onError(ex);
+					}
+				}
+
+			};
+		}
+
+	}
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.idempotency;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.Assert;
+
+@ConfigurationProperties("idempotency")
+public record IdempotencyProperties(@DefaultValue("memory") Store store, @DefaultValue("24h") Duration ttl,
+		@DefaultValue("10000") int maxEntries, @DefaultValue("1m") Duration inProgressTimeout) {
+
+	public IdempotencyProperties {
+		Assert.isTrue(ttl.isPositive(), "'idempotency.ttl' must be positive");
+		Assert.isTrue(maxEntries > 0, "'idempotency.max-entries' must be positive");
+		Assert.isTrue(inProgressTimeout.isPositive(), "'idempotency.in-progress-timeout' must be positive");
+	}
+
+	public enum Store {
+
+		MEMORY, JDBC
+
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.idempotency;
+
+import org.springframework.lang.Nullable;
+
+// Records which idempotency keys have been used and the responses to replay for them
+public interface IdempotencyStore {
+
+	// Claims the key for a request with the given fingerprint, unless it is already taken
+	Claim claim(String key, String fingerprint);
+
+	void complete(String key, StoredResponse response);
+
+	// Frees a claimed key whose request did not succeed, so that it can be retried
+	void release(String key);
+
+	record Claim(Status status, @Nullable StoredResponse response) {
+
+		static final Claim CLAIMED = new Claim(Status.CLAIMED, null);
+
+		static final Claim IN_PROGRESS = new Claim(Status.IN_PROGRESS, null);
+
+		static final Claim MISMATCH = new Claim(Status.MISMATCH, null);
+
+		static Claim completed(StoredResponse response) {
+			return new Claim(Status.COMPLETED, response);
+		}
+
+	}
+
+	enum Status {
+
+		CLAIMED, IN_PROGRESS, MISMATCH, COMPLETED
+
+	}
+
+	record StoredResponse(int status, @Nullable String contentType, byte[] body) {
+	}
+
+}
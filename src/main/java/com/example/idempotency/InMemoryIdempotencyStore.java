@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.idempotency;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+// Keeps the most recently used max-entries keys of this instance
+@Component
+@ConditionalOnProperty(name = "idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+	private final IdempotencyProperties properties;
+
+	private final Clock clock;
+
+	private final Map<String, Entry> entries;
+
+	public InMemoryIdempotencyStore(IdempotencyProperties properties, Clock clock) {
+		this.properties = properties;
+		this.clock = clock;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > properties.maxEntries();
+			}
+		};
+	}
+
+	@Override
+	public synchronized Claim claim(String key, String fingerprint) {
+		Instant now = this.clock.instant();
+		Entry entry = this.entries.get(key);
+		if (entry == null || entry.expiresAt().isBefore(now)) {
+			this.entries.put(key, new Entry(fingerprint, null, now.plus(this.properties.ttl())));
+			return Claim.CLAIMED;
+		}
+		if (!entry.fingerprint().equals(fingerprint)) {
+			return Claim.MISMATCH;
+		}
+		return (entry.response() != null) ? Claim.completed(entry.response()) : Claim.IN_PROGRESS;
+	}
+
+	@Override
+	public synchronized void complete(String key, StoredResponse response) {
+		this.entries.computeIfPresent(key, (k, entry) -> new Entry(entry.fingerprint(), response, entry.expiresAt()));
+	}
+
+	@Override
+	public synchronized void release(String key) {
+		Entry entry = this.entries.get(key);
+		if (entry != null && entry.response() == null) {
+			this.entries.remove(key);
+		}
+	}
+
+	private record Entry(String fingerprint, @Nullable StoredResponse response, Instant expiresAt) {
+	}
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.idempotency;
+
+import com.example.jdbc.ChunkedMutationExecutor;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.stereotype.Component;
+
+// Keeps the keys in the idempotency_keys table, so that they are shared by all instances
+// and survive restarts. Every statement runs in its own transaction. A claim whose
+// request never completed, e.g. because the instance died, can be taken over after the
+// in-progress timeout. Response bodies are stored in Base64, as a CBOR body is not text.
+@Component
+@ConditionalOnProperty(name = "idempotency.store", havingValue = "jdbc")
+@RegisterReflectionForBinding(JdbcIdempotencyStore.Row.class)
+public class JdbcIdempotencyStore implements IdempotencyStore, InitializingBean, DisposableBean {
+
+	private static final Duration PURGE_INTERVAL = Duration.ofMinutes(10);
+
+	private final Logger log = LoggerFactory.getLogger(JdbcIdempotencyStore.class);
+
+	private final JdbcClient jdbcClient;
+
+	private final IdempotencyProperties properties;
+
+	private final ChunkedMutationExecutor chunkedMutationExecutor;
+
+	private final SimpleAsyncTaskScheduler taskScheduler;
+
+	private final Clock clock;
+
+	private ScheduledFuture<?> scheduledPurge;
+
+	public JdbcIdempotencyStore(JdbcClient jdbcClient, IdempotencyProperties properties,
+			ChunkedMutationExecutor chunkedMutationExecutor, SimpleAsyncTaskScheduler taskScheduler, Clock clock) {
+		this.jdbcClient = jdbcClient;
+		this.properties = properties;
+		this.chunkedMutationExecutor = chunkedMutationExecutor;
+		this.taskScheduler = taskScheduler;
+		this.clock = clock;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		this.scheduledPurge = this.taskScheduler.scheduleWithFixedDelay(this::purge, PURGE_INTERVAL);
+	}
+
+	@Override
+	public void destroy() {
+		if (this.scheduledPurge != null) {
+			this.scheduledPurge.cancel(false);
+		}
+	}
+
+	@Override
+	public Claim claim(String key, String fingerprint) {
+		OffsetDateTime now = OffsetDateTime.now(this.clock);
+		try {
+			String insertSql = """
+					INSERT INTO idempotency_keys (idempotency_key, fingerprint, created_at, expires_at)
+					VALUES (?, ?, ?, ?)
+					ON CONFLICT (idempotency_key) DO NOTHING
+					""";
+			int inserted = this.jdbcClient.sql(insertSql)
+				.param(key)
+				.param(fingerprint)
+				.param(now)
+				.param(now.plus(this.properties.ttl()))
+				.update();
+			if (inserted > 0) {
+				return Claim.CLAIMED;
+			}
+			Optional<Row> row = find(key);
+			if (row.isEmpty()) {
+				// Released in the meantime
+				return Claim.IN_PROGRESS;
+			}
+			Row existing = row.get();
+			boolean abandoned = existing.responseStatus() == null
+					&& existing.createdAt().isBefore(now.minus(this.properties.inProgressTimeout()));
+			if (existing.expiresAt().isBefore(now) || abandoned) {
+				return takeOver(key, fingerprint, existing.createdAt(), now) ? Claim.CLAIMED : Claim.IN_PROGRESS;
+			}
+			if (!existing.fingerprint().equals(fingerprint)) {
+				return Claim.MISMATCH;
+			}
+			if (existing.responseStatus() == null) {
+				return Claim.IN_PROGRESS;
+			}
+			return Claim.completed(new StoredResponse(existing.responseStatus(), existing.responseContentType(),
+					Base64.getDecoder().decode(existing.responseBody())));
+		}
+		catch (DataAccessException ex) {
+			// Most likely a concurrent claim of the same key that won the conflict
+			log.warn("Failed to claim idempotency key {}", key, ex);
+			return Claim.IN_PROGRESS;
+		}
+	}
+
+	@Override
+	public void complete(String key, StoredResponse response) {
+		String sql = """
+				UPDATE idempotency_keys
+				SET response_status = ?, response_content_type = ?, response_body = ?
+				WHERE idempotency_key = ?
+				""";
+		try {
+			this.jdbcClient.sql(sql)
+				.param(response.status())
+				.param(response.contentType())
+				.param(Base64.getEncoder().encodeToString(response.body()))
+				.param(key)
+				.update();
+		}
+		catch (DataAccessException ex) {
+			// The key stays claimed until the in-progress timeout
+			log.warn("Failed to store the response for idempotency key {}", key, ex);
+		}
+	}
+
+	@Override
+	public void release(String key) {
+		String sql = "DELETE FROM idempotency_keys WHERE idempotency_key = ? AND response_status IS NULL";
+		try {
+			this.jdbcClient.sql(sql).param(key).update();
+		}
+		catch (DataAccessException ex) {
+			log.warn("Failed to release idempotency key {}", key, ex);
+		}
+	}
+
+	void purge() {
+		try {
+			OffsetDateTime now = OffsetDateTime.now(this.clock);
+			this.chunkedMutationExecutor.execute("purgeIdempotencyKeys", "idempotency_keys",
+					chunkSize -> deleteExpired(now, chunkSize));
+		}
+		catch (RuntimeException ex) {
+			// Already logged, retried on the next run
+		}
+	}
+
+	private int deleteExpired(OffsetDateTime now, int limit) {
+		String selectSql = "SELECT idempotency_key FROM idempotency_keys WHERE expires_at < ? LIMIT ?";
+		List<String> keys = this.jdbcClient.sql(selectSql).param(now).param(limit).query(String.class).list();
+		if (keys.isEmpty()) {
+			return 0;
+		}
+		String deleteSql = "DELETE FROM idempotency_keys WHERE idempotency_key IN (:keys) AND expires_at < :now";
+		return this.jdbcClient.sql(deleteSql).param("keys", keys).param("now", now).update();
+	}
+
+	private Optional<Row> find(String key) {
+		String sql = """
+				SELECT fingerprint, response_status, response_content_type, response_body, created_at, expires_at
+				FROM idempotency_keys
+				WHERE idempotency_key = ?
+				""";
+		return this.jdbcClient.sql(sql).param(key).query(Row.class).optional();
+	}
+
+	// Only one of concurrent takeovers matches the created_at it has read
+	private boolean takeOver(String key, String fingerprint, OffsetDateTime createdAt, OffsetDateTime now) {
+		String sql = """
+				UPDATE idempotency_keys
+				SET fingerprint = ?, response_status = NULL, response_content_type = NULL, response_body = NULL,
+				    created_at = ?, expires_at = ?
+				WHERE idempotency_key = ? AND created_at = ?
+				""";
+		return this.jdbcClient.sql(sql)
+			.param(fingerprint)
+			.param(now)
+			.param(now.plus(this.properties.ttl()))
+			.param(key)
+			.param(createdAt)
+			.update() > 0;
+	}
+
+	record Row(String fingerprint, @Nullable Integer responseStatus, @Nullable String responseContentType,
+			@Nullable String responseBody, OffsetDateTime createdAt, OffsetDateTime expiresAt) {
+	}
+
+}
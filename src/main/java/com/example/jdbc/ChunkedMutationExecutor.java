@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Splits a mutation over many rows into chunks of at most chunk-size rows. Every chunk is
+// expected to commit on its own, so that no transaction exceeds the DSQL row limit.
+@Component
+@EnableConfigurationProperties(ChunkedMutationProperties.class)
+public class ChunkedMutationExecutor {
+
+	private final Logger log = LoggerFactory.getLogger(ChunkedMutationExecutor.class);
+
+	private final ChunkedMutationProperties properties;
+
+	private final SimpleAsyncTaskScheduler taskScheduler;
+
+	private final MeterRegistry meterRegistry;
+
+	private final Set<Progress> active = ConcurrentHashMap.newKeySet();
+
+	public ChunkedMutationExecutor(ChunkedMutationProperties properties, SimpleAsyncTaskScheduler taskScheduler,
+			MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.taskScheduler = taskScheduler;
+		this.meterRegistry = meterRegistry;
+		Gauge.builder("chunked.mutations.active", this.active, Set::size)
+			.description("Chunked mutations in progress")
+			.register(meterRegistry);
+	}
+
+	public int chunkSize() {
+		return this.properties.chunkSize();
+	}
+
+	// Applies the chunk with the chunk size until it affects fewer rows than that
+	public Progress execute(String operation, Object target, IntUnaryOperator chunk) {
+		Progress progress = new Progress(operation, target.toString(), Instant.now());
+		Counter rows = Counter.builder("chunked.mutation.rows")
+			.description("Rows affected by chunked mutations")
+			.tag("operation", operation)
+			.register(this.meterRegistry);
+		this.active.add(progress);
+		try {
+			int affected;
+			do {
+				affected = chunk.applyAsInt(chunkSize());
+				progress.add(affected);
+				rows.increment(affected);
+				log.debug("{}", progress);
+			}
+			while (affected >= chunkSize());
+		}
+		catch (RuntimeException e) {
+			log.error("Failed to complete {}", progress, e);
+			throw e;
+		}
+		finally {
+			this.active.remove(progress);
+		}
+		log.info("Completed {}", progress);
+		return progress;
+	}
+
+	// Runs the mutation in the background once the current transaction has committed
+	public void executeAfterCommit(String operation, Object target, IntUnaryOperator chunk) {
+		Runnable task = () -> {
+			try {
+				execute(operation, target, chunk);
+			}
+			catch (RuntimeException e) {
+				// Already logged with its progress
+			}
+		};
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			this.taskScheduler.execute(task);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				taskScheduler.execute(task);
+			}
+		});
+	}
+
+	public List<Progress> activeMutations() {
+		return List.copyOf(this.active);
+	}
+
+	public static final class Progress {
+
+		private final String operation;
+
+		private final String target;
+
+		private final Instant startedAt;
+
+		private final AtomicInteger chunks = new AtomicInteger();
+
+		private final AtomicLong rows = new AtomicLong();
+
+		Progress(String operation, String target, Instant startedAt) {
+			this.operation = operation;
+			this.target = target;
+			this.startedAt = startedAt;
+		}
+
+		void add(int rows) {
+			this.chunks.incrementAndGet();
+			this.rows.addAndGet(rows);
+		}
+
+		public String operation() {
+			return this.operation;
+		}
+
+		public String target() {
+			return this.target;
+		}
+
+		public int chunks() {
+			return this.chunks.get();
+		}
+
+		public long rows() {
+			return this.rows.get();
+		}
+
+		@Override
+		public String toString() {
+			return this.operation + "(" + this.target + "): " + rows() + " rows in " + chunks() + " chunks, "
+					+ Duration.between(this.startedAt, Instant.now()).toMillis() + " ms";
+		}
+
+	}
+
+}
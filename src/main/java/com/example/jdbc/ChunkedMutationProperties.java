@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.Assert;
+
+@ConfigurationProperties("chunked-mutation")
+public record ChunkedMutationProperties(@DefaultValue("500") int chunkSize) {
+
+	// https://docs.aws.amazon.com/aurora-dsql/latest/userguide/CHAP_quotas.html
+	public static final int MAX_ROWS_PER_TRANSACTION = 3000;
+
+	public ChunkedMutationProperties {
+		Assert.isTrue(chunkSize > 0 && chunkSize <= MAX_ROWS_PER_TRANSACTION,
+				"'chunked-mutation.chunk-size' must be between 1 and " + MAX_ROWS_PER_TRANSACTION);
+	}
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.Assert;
+
+@ConfigurationProperties("hedged-reads")
+public record HedgedReadProperties(@DefaultValue("false") boolean enabled, @DefaultValue("0.95") double percentile,
+		@DefaultValue("5ms") Duration minDelay, @DefaultValue("200ms") Duration maxDelay,
+		@DefaultValue("100") int minSamples, @DefaultValue("0.05") double maxRate,
+		@DefaultValue("2") int maxConcurrent) {
+
+	public HedgedReadProperties {
+		Assert.isTrue(percentile > 0 && percentile < 1, "'hedged-reads.percentile' must be between 0 and 1");
+		Assert.isTrue(minDelay.compareTo(maxDelay) <= 0,
+				"'hedged-reads.min-delay' must not be greater than 'hedged-reads.max-delay'");
+		Assert.isTrue(maxRate >= 0 && maxRate <= 1, "'hedged-reads.max-rate' must be between 0 and 1");
+		Assert.isTrue(maxConcurrent > 0, "'hedged-reads.max-concurrent' must be greater than 0");
+	}
+
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Sends a second, identical read when the first one has not answered within the
+// configured percentile of recent read latencies. The first read runs on the calling
+// thread and the hedge on its own thread and pooled connection; whichever answers first
+// cancels the statement of the other through datasource-proxy.
+@Component
+@EnableConfigurationProperties(HedgedReadProperties.class)
+public class HedgedReads implements QueryExecutionListener {
+
+	private static final ThreadLocal<Attempt> currentAttempt = new ThreadLocal<>();
+
+	private final Logger log = LoggerFactory.getLogger(HedgedReads.class);
+
+	private final HedgedReadProperties properties;
+
+	private final SimpleAsyncTaskScheduler taskScheduler;
+
+	private final MeterRegistry meterRegistry;
+
+	private final Semaphore inFlight;
+
+	private double tokens;
+
+	public HedgedReads(HedgedReadProperties properties, SimpleAsyncTaskScheduler taskScheduler,
+			MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.taskScheduler = taskScheduler;
+		this.meterRegistry = meterRegistry;
+		this.inFlight = new Semaphore(properties.maxConcurrent());
+	}
+
+	public <T> T read(String operation, Supplier<T> read) {
+		// A hedge could not see the writes of the caller's transaction
+		if (!this.properties.enabled() || TransactionSynchronizationManager.isActualTransactionActive()
+				|| currentAttempt.get() != null) {
+			return read.get();
+		}
+		earn();
+		Timer latency = Timer.builder("hedged.reads.latency")
+			.description("Latency of hedged reads")
+			.tag("operation", operation)
+			.publishPercentiles(this.properties.percentile())
+			.register(this.meterRegistry);
+		HedgedRead<T> hedgedRead = new HedgedRead<>(read);
+		long start = System.nanoTime();
+		ScheduledFuture<?> trigger = this.taskScheduler.schedule(() -> hedge(hedgedRead),
+				Instant.now().plus(delay(latency)));
+		try {
+			T result;
+			try {
+				result = hedgedRead.primary.run(read);
+				hedgedRead.finish();
+			}
+			catch (RuntimeException ex) {
+				// Cancelled by a hedge that answered first, or failed on its own
+				result = hedgedRead.awaitHedge(ex);
+			}
+			latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			return result;
+		}
+		finally {
+			trigger.cancel(false);
+			Counter.builder("hedged.reads")
+				.description("Reads by whether a hedge was sent and which attempt answered first")
+				.tag("operation", operation)
+				.tag("outcome", hedgedRead.outcome())
+				.register(this.meterRegistry)
+				.increment();
+		}
+	}
+
+	private <T> void hedge(HedgedRead<T> hedgedRead) {
+		if (hedgedRead.done) {
+			return;
+		}
+		if (!this.inFlight.tryAcquire()) {
+			hedgedRead.throttled = true;
+			return;
+		}
+		try {
+			if (!spend()) {
+				hedgedRead.throttled = true;
+				return;
+			}
+			Attempt attempt = new Attempt();
+			hedgedRead.hedge = attempt;
+			if (hedgedRead.done) {
+				hedgedRead.hedgeResult.cancel(false);
+				return;
+			}
+			T result = attempt.run(hedgedRead.read);
+			if (hedgedRead.hedgeResult.complete(result)) {
+				hedgedRead.primary.cancel();
+			}
+		}
+		catch (RuntimeException ex) {
+			hedgedRead.hedgeResult.completeExceptionally(ex);
+		}
+		finally {
+			this.inFlight.release();
+		}
+	}
+
+	private Duration delay(Timer latency) {
+		if (latency.count() < this.properties.minSamples()) {
+			return this.properties.maxDelay();
+		}
+		for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+			Duration delay = Duration.ofNanos((long) value.value(TimeUnit.NANOSECONDS));
+			if (delay.compareTo(this.properties.minDelay()) < 0) {
+				return this.properties.minDelay();
+			}
+			return (delay.compareTo(this.properties.maxDelay()) > 0) ? this.properties.maxDelay() : delay;
+		}
+		return this.properties.maxDelay();
+	}
+
+	// Every read earns max-rate of a hedge and every hedge spends a whole one, so at most
+	// that fraction of reads is hedged over time
+	private synchronized void earn() {
+		this.tokens = Math.min(this.tokens + this.properties.maxRate(), this.properties.maxConcurrent());
+	}
+
+	private synchronized boolean spend() {
+		if (this.tokens < 1) {
+			return false;
+		}
+		this.tokens--;
+		return true;
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		Attempt attempt = currentAttempt.get();
+		if (attempt != null) {
+			attempt.started(execInfo.getStatement());
+		}
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		Attempt attempt = currentAttempt.get();
+		if (attempt != null) {
+			attempt.finished();
+		}
+	}
+
+	private final class HedgedRead<T> {
+
+		final Supplier<T> read;
+
+		final Attempt primary = new Attempt();
+
+		final CompletableFuture<T> hedgeResult = new CompletableFuture<>();
+
+		volatile Attempt hedge;
+
+		volatile boolean done;
+
+		volatile boolean throttled;
+
+		volatile boolean answeredByHedge;
+
+		HedgedRead(Supplier<T> read) {
+			this.read = read;
+		}
+
+		void finish() {
+			this.done = true;
+			Attempt hedge = this.hedge;
+			if (hedge != null && !this.hedgeResult.isDone()) {
+				hedge.cancel();
+			}
+		}
+
+		T awaitHedge(RuntimeException primaryFailure) {
+			this.done = true;
+			if (this.hedge == null) {
+				throw primaryFailure;
+			}
+			try {
+				T result = this.hedgeResult.join();
+				this.answeredByHedge = true;
+				return result;
+			}
+			catch (CompletionException | CancellationException ex) {
+				throw primaryFailure;
+			}
+		}
+
+		String outcome() {
+			if (this.hedge != null) {
+				return this.answeredByHedge ? "hedge_won" : "hedge_lost";
+			}
+			return this.throttled ? "throttled" : "primary";
+		}
+
+	}
+
+	private final class Attempt {
+
+		private Statement statement;
+
+		<T> T run(Supplier<T> read) {
+			currentAttempt.set(this);
+			try {
+				return read.get();
+			}
+			finally {
+				currentAttempt.remove();
+			}
+		}
+
+		synchronized void started(Statement statement) {
+			this.statement = statement;
+		}
+
+		synchronized void finished() {
+			this.statement = null;
+		}
+
+		void cancel() {
+			Statement statement;
+			synchronized (this) {
+				statement = this.statement;
+			}
+			if (statement == null) {
+				return;
+			}
+			try {
+				statement.cancel();
+			}
+			catch (SQLException ex) {
+				log.debug("Failed to cancel the losing read", ex);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.stereotype.Component;
+
+// Resizes every Hikari pool, including the pool of each shard, between min-size and
+// max-size. Each interval it samples the threads waiting for a connection, the mean time
+// they waited and the active connections. The pool grows by the number of waiting threads
+// as soon as threads wait, and shrinks one connection at a time after shrink-after
+// samples in a row in which it was mostly idle, so that a short lull does not undo the
+// growth. The sample after a resize is skipped. Idle connections above min-size are
+// closed by Hikari after its idle timeout.
+@Component
+@ConditionalOnProperty(name = "pool-sizer.enabled", havingValue = "true")
+@EnableConfigurationProperties(PoolSizerProperties.class)
+public class PoolSizer implements SmartInitializingSingleton, DisposableBean {
+
+	private final Logger log = LoggerFactory.getLogger(PoolSizer.class);
+
+	private final List<DataSource> dataSources;
+
+	private final PoolSizerProperties properties;
+
+	private final SimpleAsyncTaskScheduler taskScheduler;
+
+	private final MeterRegistry meterRegistry;
+
+	private final List<Pool> pools = new ArrayList<>();
+
+	@Nullable
+	private ScheduledFuture<?> scheduledSampling;
+
+	public PoolSizer(List<DataSource> dataSources, PoolSizerProperties properties,
+			SimpleAsyncTaskScheduler taskScheduler, MeterRegistry meterRegistry) {
+		this.dataSources = dataSources;
+		this.properties = properties;
+		this.taskScheduler = taskScheduler;
+		this.meterRegistry = meterRegistry;
+	}
+
+	// The pools are started lazily, so they are looked up once all beans exist
+	@Override
+	public void afterSingletonsInstantiated() {
+		for (HikariDataSource dataSource : hikariDataSources()) {
+			this.pools.add(new Pool(dataSource));
+		}
+		// A fixed rate would start every run on a thread of its own, so runs could
+		// overlap
+		this.scheduledSampling = this.taskScheduler.scheduleWithFixedDelay(this::sample,
+				Instant.now().plus(this.properties.interval()), this.properties.interval());
+	}
+
+	@Override
+	public void destroy() {
+		if (this.scheduledSampling != null) {
+			this.scheduledSampling.cancel(true);
+		}
+	}
+
+	// Pool keeps its counters in plain fields, so samples must not overlap
+	synchronized void sample() {
+		for (Pool pool : this.pools) {
+			try {
+				pool.sample();
+			}
+			catch (RuntimeException e) {
+				log.error("Failed to resize {}", pool.dataSource.getPoolName(), e);
+			}
+		}
+	}
+
+	List<Pool> pools() {
+		return this.pools;
+	}
+
+	// The data sources are wrapped by the observation proxy, and with sharding or
+	// regional endpoints the pools sit behind the routing data source
+	private List<HikariDataSource> hikariDataSources() {
+		Map<HikariDataSource, Boolean> found = new IdentityHashMap<>();
+		for (DataSource dataSource : this.dataSources) {
+			try {
+				if (dataSource.isWrapperFor(ShardRoutingDataSource.class)) {
+					dataSource.unwrap(ShardRoutingDataSource.class)
+						.getShards()
+						.forEach(shard -> found.put(shard, true));
+				}
+				else if (dataSource.isWrapperFor(RegionalRoutingDataSource.class)) {
+					dataSource.unwrap(RegionalRoutingDataSource.class)
+						.getEndpoints()
+						.forEach(endpoint -> found.put(endpoint.getDataSource(), true));
+				}
+				else if (dataSource.isWrapperFor(HikariDataSource.class)) {
+					found.put(dataSource.unwrap(HikariDataSource.class), true);
+				}
+			}
+			catch (SQLException e) {
+				throw new IllegalStateException("Failed to unwrap " + dataSource, e);
+			}
+		}
+		return new ArrayList<>(found.keySet());
+	}
+
+	// The next maximum pool size for a sample, misses counts the samples in a row in
+	// which the pool was mostly idle
+	static int nextSize(int size, Sample sample, int misses, PoolSizerProperties properties) {
+		if (sample.pending() > 0 || sample.meanWait().compareTo(properties.targetWait()) > 0) {
+			return Math.min(properties.maxSize(), size + Math.max(1, sample.pending()));
+		}
+		if (misses >= properties.shrinkAfter()) {
+			return Math.max(properties.minSize(), size - 1);
+		}
+		return size;
+	}
+
+	record Sample(int active, int pending, Duration meanWait) {
+	}
+
+	class Pool {
+
+		private final HikariDataSource dataSource;
+
+		private final AtomicInteger size;
+
+		private final Counter grown;
+
+		private final Counter shrunk;
+
+		private int misses;
+
+		private boolean settling;
+
+		private long acquisitions;
+
+		private double waitNanos;
+
+		Pool(HikariDataSource dataSource) {
+			this.dataSource = dataSource;
+			HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+			int initial = Math.clamp(config.getMaximumPoolSize(), properties.minSize(), properties.maxSize());
+			config.setMaximumPoolSize(initial);
+			config.setMinimumIdle(Math.min(properties.minSize(), initial));
+			this.size = new AtomicInteger(initial);
+			String poolName = dataSource.getPoolName();
+			Gauge.builder("pool.sizer.size", this.size, AtomicInteger::get)
+				.description("Maximum pool size chosen by the pool sizer")
+				.tag("pool", poolName)
+				.register(meterRegistry);
+			this.grown = Counter.builder("pool.sizer.resizes")
+				.description("Pool resizes by the pool sizer")
+				.tag("pool", poolName)
+				.tag("direction", "grow")
+				.register(meterRegistry);
+			this.shrunk = Counter.builder("pool.sizer.resizes")
+				.description("Pool resizes by the pool sizer")
+				.tag("pool", poolName)
+				.tag("direction", "shrink")
+				.register(meterRegistry);
+		}
+
+		void sample() {
+			HikariPoolMXBean pool = this.dataSource.getHikariPoolMXBean();
+			if (pool == null) {
+				// Not started yet
+				return;
+			}
+			int current = this.size.get();
+			Sample sample = new Sample(pool.getActiveConnections(), pool.getThreadsAwaitingConnection(), meanWait());
+			if (this.settling) {
+				// The waits since the last resize were mostly spent at the previous size
+				this.settling = false;
+				return;
+			}
+			if (sample.active() < current * properties.shrinkUtilization()) {
+				this.misses++;
+			}
+			else {
+				this.misses = 0;
+			}
+			int next = nextSize(current, sample, this.misses, properties);
+			if (next == current) {
+				return;
+			}
+			this.dataSource.getHikariConfigMXBean().setMaximumPoolSize(next);
+			this.size.set(next);
+			this.misses = 0;
+			this.settling = true;
+			if (next > current) {
+				this.grown.increment();
+				addConnections();
+			}
+			else {
+				this.shrunk.increment();
+			}
+			log.info("Resized {} from {} to {} (active={}, pending={}, meanWait={}ms)", this.dataSource.getPoolName(),
+					current, next, sample.active(), sample.pending(), sample.meanWait().toMillis());
+		}
+
+		// Hikari adds connections when a thread starts to wait for one, so the threads
+		// that already wait get theirs only once another thread asks for a connection
+		private void addConnections() {
+			Thread.ofVirtual().name("pool-sizer-" + this.dataSource.getPoolName()).start(() -> {
+				try (Connection connection = this.dataSource.getConnection()) {
+					// Returned right away
+				}
+				catch (SQLException e) {
+					log.debug("Failed to add connections to {}", this.dataSource.getPoolName(), e);
+				}
+			});
+		}
+
+		int size() {
+			return this.size.get();
+		}
+
+		// Mean time to acquire a connection since the previous sample, as recorded by the
+		// Hikari metrics
+		private Duration meanWait() {
+			Timer acquire = meterRegistry.find("hikaricp.connections.acquire")
+				.tag("pool", this.dataSource.getPoolName())
+				.timer();
+			if (acquire == null) {
+				return Duration.ZERO;
+			}
+			long acquisitions = acquire.count();
+			double waitNanos = acquire.totalTime(TimeUnit.NANOSECONDS);
+			long count = acquisitions - this.acquisitions;
+			double nanos = waitNanos - this.waitNanos;
+			this.acquisitions = acquisitions;
+			this.waitNanos = waitNanos;
+			return (count > 0) ? Duration.ofNanos((long) (nanos / count)) : Duration.ZERO;
+		}
+
+	}
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.Assert;
+
+@ConfigurationProperties("pool-sizer")
+public record PoolSizerProperties(@DefaultValue("false") boolean enabled, @DefaultValue("2") int minSize,
+		@DefaultValue("32") int maxSize, @DefaultValue("5s") Duration interval,
+		@DefaultValue("10ms") Duration targetWait, @DefaultValue("0.5") double shrinkUtilization,
+		@DefaultValue("12") int shrinkAfter) {
+
+	public PoolSizerProperties {
+		Assert.isTrue(minSize > 0, "'pool-sizer.min-size' must be positive");
+		Assert.isTrue(maxSize >= minSize, "'pool-sizer.max-size' must not be less than 'pool-sizer.min-size'");
+		Assert.isTrue(interval.isPositive(), "'pool-sizer.interval' must be positive");
+		Assert.isTrue(shrinkUtilization > 0 && shrinkUtilization < 1,
+				"'pool-sizer.shrink-utilization' must be between 0 and 1");
+		Assert.isTrue(shrinkAfter > 0, "'pool-sizer.shrink-after' must be positive");
+	}
+
+}
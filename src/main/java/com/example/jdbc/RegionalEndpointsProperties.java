@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+@ConfigurationProperties("regional-endpoints")
+public record RegionalEndpointsProperties(@DefaultValue("false") boolean enabled,
+		@DefaultValue List<Endpoint> endpoints, @DefaultValue("1s") Duration probeInterval,
+		@DefaultValue("0.3") double smoothing, @DefaultValue("0.5") double maxErrorRate,
+		@DefaultValue("5ms") Duration switchMargin) {
+
+	public RegionalEndpointsProperties {
+		Assert.isTrue(!enabled || !endpoints.isEmpty(),
+				"'regional-endpoints.endpoints' must not be empty when regional endpoints are enabled");
+		Assert.isTrue(probeInterval.isPositive(), "'regional-endpoints.probe-interval' must be positive");
+		Assert.isTrue(smoothing > 0 && smoothing <= 1, "'regional-endpoints.smoothing' must be in (0, 1]");
+		Assert.isTrue(maxErrorRate > 0 && maxErrorRate < 1, "'regional-endpoints.max-error-rate' must be in (0, 1)");
+		Assert.isTrue(!switchMargin.isNegative(), "'regional-endpoints.switch-margin' must not be negative");
+	}
+
+	// Endpoints without a password authenticate with DSQL tokens signed for their region,
+	// or for the default region when none is set
+	public record Endpoint(String name, String url, String username, @Nullable String password,
+			@Nullable String region) {
+
+		public Endpoint {
+			Assert.hasText(name, "'regional-endpoints.endpoints[].name' must not be empty");
+			Assert.hasText(url, "'regional-endpoints.endpoints[].url' must not be empty");
+			Assert.hasText(username, "'regional-endpoints.endpoints[].username' must not be empty");
+		}
+
+	}
+
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+// Hands out connections of the fastest healthy endpoint of peered clusters. Every
+// endpoint is probed with SELECT 1, which keeps a smoothed round-trip latency and error
+// rate per endpoint. Probes have a pool of their own, so that they measure the
+// endpoint rather than waiting for a connection of a busy pool. Traffic moves to another endpoint when it is faster by more than
+// the switch margin, or at once when the current one fails to open a connection.
+public class RegionalRoutingDataSource extends AbstractDataSource implements MeterBinder, Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(RegionalRoutingDataSource.class);
+
+	private final List<Endpoint> endpoints;
+
+	private final RegionalEndpointsProperties properties;
+
+	private final AtomicLong switches = new AtomicLong();
+
+	private final Lock probeLock = new ReentrantLock();
+
+	private volatile Endpoint current;
+
+	public RegionalRoutingDataSource(List<Endpoint> endpoints, RegionalEndpointsProperties properties) {
+		this.endpoints = List.copyOf(endpoints);
+		this.properties = properties;
+		// The first endpoint is used until the others have been measured
+		this.current = this.endpoints.get(0);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		SQLException failure = null;
+		for (Endpoint endpoint : candidates()) {
+			try {
+				return endpoint.dataSource.getConnection();
+			}
+			catch (SQLException ex) {
+				if (failure != null) {
+					ex.addSuppressed(failure);
+				}
+				if (!isConnectFailure(ex)) {
+					// A saturated pool says nothing about the endpoint, the caller backs
+					// off instead of moving the load to another region
+					throw ex;
+				}
+				// The pool could not open a connection, the endpoint is down for now
+				endpoint.errorRate = 1;
+				select();
+				failure = ex;
+			}
+		}
+		throw failure;
+	}
+
+	// Hikari times out with the last failure to open a connection as the cause and
+	// takes its SQLState, a timeout without one means that every connection was in use
+	static boolean isConnectFailure(SQLException ex) {
+		return ex.getCause() != null || (ex.getSQLState() != null && ex.getSQLState().startsWith("08"));
+	}
+
+	// Every endpoint has credentials of its own, a DSQL token is signed for one region
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new UnsupportedOperationException(
+				"Connections of regional endpoints use the credentials of each endpoint");
+	}
+
+	// The current endpoint first, then the other healthy ones and the unhealthy
+	// ones last, each by latency
+	private List<Endpoint> candidates() {
+		Endpoint first = this.current;
+		List<Endpoint> candidates = new ArrayList<>(this.endpoints.size());
+		candidates.add(first);
+		this.endpoints.stream()
+			.filter(endpoint -> endpoint != first)
+			.sorted(Comparator.comparing((Endpoint endpoint) -> !isHealthy(endpoint))
+				.thenComparingDouble(Endpoint::latencyNanos))
+			.forEach(candidates::add);
+		return candidates;
+	}
+
+	// Probes do not hold the lock of select, so a failover is not held up by a probe
+	// waiting for an endpoint that is down. The lock is not a monitor, which would
+	// pin the virtual thread of the scheduler during the I/O.
+	public void probe() {
+		this.probeLock.lock();
+		try {
+			for (Endpoint endpoint : this.endpoints) {
+				try (Connection connection = endpoint.probeDataSource.getConnection();
+						Statement statement = connection.createStatement()) {
+					long start = System.nanoTime();
+					statement.execute("SELECT 1");
+					endpoint.record(System.nanoTime() - start, false, this.properties.smoothing());
+				}
+				catch (SQLException ex) {
+					log.debug("Failed to probe {}", endpoint.name, ex);
+					endpoint.record(0, true, this.properties.smoothing());
+				}
+			}
+		}
+		finally {
+			this.probeLock.unlock();
+		}
+		select();
+	}
+
+	private synchronized void select() {
+		Endpoint previous = this.current;
+		Endpoint fastest = this.endpoints.stream()
+			.filter(this::isHealthy)
+			.filter(endpoint -> endpoint.measured)
+			.min(Comparator.comparingDouble(Endpoint::latencyNanos))
+			.orElse(null);
+		if (fastest == null || fastest == previous) {
+			return;
+		}
+		if (isHealthy(previous) && previous.measured
+				&& fastest.latencyNanos + this.properties.switchMargin().toNanos() >= previous.latencyNanos) {
+			return;
+		}
+		this.current = fastest;
+		this.switches.incrementAndGet();
+		log.info("Switched from endpoint {} (healthy={}, latency={}us) to {} (latency={}us)", previous.name,
+				isHealthy(previous), Math.round(previous.latencyNanos / 1000), fastest.name,
+				Math.round(fastest.latencyNanos / 1000));
+	}
+
+	private boolean isHealthy(Endpoint endpoint) {
+		return endpoint.errorRate <= this.properties.maxErrorRate();
+	}
+
+	public Endpoint getCurrent() {
+		return this.current;
+	}
+
+	public List<Endpoint> getEndpoints() {
+		return this.endpoints;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		for (Endpoint endpoint : this.endpoints) {
+			Gauge
+				.builder("regional.endpoint.latency", endpoint,
+						e -> e.measured ? e.latencyNanos / 1_000_000 : Double.NaN)
+				.description("Smoothed round-trip latency of the endpoint probes in milliseconds")
+				.tag("endpoint", endpoint.name)
+				.register(registry);
+			Gauge.builder("regional.endpoint.error.rate", endpoint, e -> e.errorRate)
+				.description("Smoothed share of failed probes and connection attempts")
+				.tag("endpoint", endpoint.name)
+				.register(registry);
+			Gauge.builder("regional.endpoint.current", endpoint, e -> (e == this.current) ? 1 : 0)
+				.description("Whether the endpoint receives the traffic")
+				.tag("endpoint", endpoint.name)
+				.register(registry);
+		}
+		FunctionCounter.builder("regional.endpoint.switches", this.switches, AtomicLong::get)
+			.description("Number of times the traffic moved to another endpoint")
+			.register(registry);
+	}
+
+	@Override
+	public void close() {
+		this.endpoints.forEach(endpoint -> {
+			endpoint.dataSource.close();
+			endpoint.probeDataSource.close();
+		});
+	}
+
+	public static class Endpoint {
+
+		private final String name;
+
+		private final HikariDataSource dataSource;
+
+		private final HikariDataSource probeDataSource;
+
+		private volatile boolean measured;
+
+		private volatile double latencyNanos = Double.MAX_VALUE;
+
+		private volatile double errorRate;
+
+		public Endpoint(String name, HikariDataSource dataSource, HikariDataSource probeDataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+			this.probeDataSource = probeDataSource;
+		}
+
+		// A failed probe leaves the latency as it was
+		void record(long elapsedNanos, boolean failed, double smoothing) {
+			this.errorRate = smoothing * (failed ? 1 : 0) + (1 - smoothing) * this.errorRate;
+			if (!failed) {
+				this.latencyNanos = this.measured ? smoothing * elapsedNanos + (1 - smoothing) * this.latencyNanos
+						: elapsedNanos;
+				this.measured = true;
+			}
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public HikariDataSource getDataSource() {
+			return this.dataSource;
+		}
+
+		public HikariDataSource getProbeDataSource() {
+			return this.probeDataSource;
+		}
+
+		double latencyNanos() {
+			return this.latencyNanos;
+		}
+
+		double errorRate() {
+			return this.errorRate;
+		}
+
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+
+// Keeps the readiness probe out of service until the required indexes are valid. DSQL
+// builds the indexes created with CREATE INDEX ASYNC in background jobs and marks them
+// valid in pg_index once their job completed, so a new environment would otherwise take
+// traffic while its queries still scan whole tables. The indexes are checked on a
+// schedule instead of on every probe, until all of them are valid on every cluster.
+public class SchemaIndexHealthIndicator implements HealthIndicator, InitializingBean, DisposableBean {
+
+	private final Logger log = LoggerFactory.getLogger(SchemaIndexHealthIndicator.class);
+
+	private final List<JdbcClient> clusters;
+
+	private final SchemaIndexProperties properties;
+
+	private final SimpleAsyncTaskScheduler taskScheduler;
+
+	private volatile Health health = Health.outOfService().withDetail("indexes", "not checked yet").build();
+
+	private volatile ScheduledFuture<?> scheduledCheck;
+
+	public SchemaIndexHealthIndicator(List<? extends DataSource> clusters, SchemaIndexProperties properties,
+			SimpleAsyncTaskScheduler taskScheduler) {
+		this.clusters = clusters.stream().map(JdbcClient::create).toList();
+		this.properties = properties;
+		this.taskScheduler = taskScheduler;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		this.scheduledCheck = this.taskScheduler.scheduleWithFixedDelay(() -> {
+			// Valid indexes do not become invalid again
+			if (check().getStatus().equals(Status.UP) && this.scheduledCheck != null) {
+				this.scheduledCheck.cancel(false);
+			}
+		}, Instant.now(), this.properties.checkInterval());
+	}
+
+	@Override
+	public void destroy() {
+		if (this.scheduledCheck != null) {
+			this.scheduledCheck.cancel(true);
+		}
+	}
+
+	@Override
+	public Health health() {
+		return this.health;
+	}
+
+	Health check() {
+		Health health;
+		try {
+			boolean ready = true;
+			Map<String, Object> details = new LinkedHashMap<>();
+			for (int i = 0; i < this.clusters.size(); i++) {
+				Map<String, String> indexes = indexes(this.clusters.get(i));
+				ready &= indexes.values().stream().allMatch("valid"::equals);
+				details.put((this.clusters.size() == 1) ? "indexes" : "shard-" + i, indexes);
+			}
+			health = (ready ? Health.up() : Health.outOfService()).withDetails(details).build();
+		}
+		catch (RuntimeException e) {
+			log.warn("Failed to check the schema indexes", e);
+			health = Health.down(e).build();
+		}
+		if (!health.getStatus().equals(this.health.getStatus())) {
+			log.info("Schema indexes are {}: {}", health.getStatus(), health.getDetails());
+		}
+		this.health = health;
+		return health;
+	}
+
+	private Map<String, String> indexes(JdbcClient jdbcClient) {
+		Map<String, String> indexes = new LinkedHashMap<>();
+		this.properties.required().forEach(index -> indexes.put(index, "missing"));
+		jdbcClient.sql("""
+				SELECT c.relname, i.indisvalid
+				FROM pg_index i
+				JOIN pg_class c ON c.oid = i.indexrelid
+				WHERE c.relname = ANY(?)
+				""")
+			.param(this.properties.required().toArray(String[]::new))
+			.query((rs, rowNum) -> Map.entry(rs.getString("relname"),
+					rs.getBoolean("indisvalid") ? "valid" : "building"))
+			.list()
+			.forEach(index -> indexes.put(index.getKey(), index.getValue()));
+		return indexes;
+	}
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.Assert;
+
+@ConfigurationProperties("schema.indexes")
+public record SchemaIndexProperties(@DefaultValue( {
+		"idx_carts_user_id", "idx_cart_items_cart_id" }) List<String> required,
+		@DefaultValue("10s") Duration checkInterval){
+
+	public SchemaIndexProperties {
+		Assert.isTrue(checkInterval.isPositive(), "'schema.indexes.check-interval' must be positive");
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Maps users to shards with a consistent hash, so adding a shard moves only the users
+// that hash to it. Cart ids carry the shard of their cart in the top 16 bits of a version
+// 8 UUID, so a cart can be found by id alone. Without sharding everything is on shard 0.
+@Component
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardRouter {
+
+	static final int MAX_SHARDS = 1 << 16;
+
+	private static final ThreadLocal<Integer> currentShard = new ThreadLocal<>();
+
+	private final int shardCount;
+
+	private final NavigableMap<Long, Integer> ring = new TreeMap<>();
+
+	public ShardRouter(ShardingProperties properties) {
+		this.shardCount = properties.enabled() ? properties.shards().size() : 1;
+		for (int shard = 0; shard < this.shardCount; shard++) {
+			for (int node = 0; node < properties.virtualNodes(); node++) {
+				this.ring.put(hash("shard-" + shard + "#" + node), shard);
+			}
+		}
+	}
+
+	public int shardCount() {
+		return this.shardCount;
+	}
+
+	public int shardOf(String userId) {
+		if (this.shardCount == 1) {
+			return 0;
+		}
+		Map.Entry<Long, Integer> node = this.ring.ceilingEntry(hash(userId));
+		return (node != null ? node : this.ring.firstEntry()).getValue();
+	}
+
+	// Ids that were not issued by newCartId, e.g. from before sharding, are on shard 0
+	public int shardOf(UUID cartId) {
+		if (cartId.version() != 8) {
+			return 0;
+		}
+		int shard = (int) (cartId.getMostSignificantBits() >>> 48);
+		return (shard < this.shardCount) ? shard : 0;
+	}
+
+	public UUID newCartId(int shard) {
+		UUID random = UUID.randomUUID();
+		long msb = ((long) shard << 48) | (random.getMostSignificantBits() & 0x0000_FFFF_FFFF_0FFFL) | 0x8000L;
+		return new UUID(msb, random.getLeastSignificantBits());
+	}
+
+	// Runs the action with its statements routed to the shard. Within a transaction the
+	// shard stays bound until completion, so a transaction cannot span shards.
+	public <T> T callOn(int shard, Supplier<T> action) {
+		Integer bound = currentShard();
+		if (bound != null) {
+			if (bound != shard) {
+				throw new IllegalStateException("Shard " + shard + " cannot be used while shard " + bound + " is");
+			}
+			return action.get();
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.bindResource(this, shard);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(ShardRouter.this);
+				}
+			});
+			return action.get();
+		}
+		currentShard.set(shard);
+		try {
+			return action.get();
+		}
+		finally {
+			currentShard.remove();
+		}
+	}
+
+	public void runOn(int shard, Runnable action) {
+		callOn(shard, () -> {
+			action.run();
+			return null;
+		});
+	}
+
+	@Nullable
+	public Integer currentShard() {
+		Integer shard = currentShard.get();
+		return (shard != null) ? shard : (Integer) TransactionSynchronizationManager.getResource(this);
+	}
+
+	// FNV-1a followed by the murmur3 finalizer, so that similar keys spread over the ring
+	private static long hash(String key) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b;
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+// Hands out connections of the shard bound by ShardRouter, or of shard 0 when none is
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+	private final ShardRouter shardRouter;
+
+	private final List<HikariDataSource> shards;
+
+	public ShardRoutingDataSource(ShardRouter shardRouter, List<HikariDataSource> shards) {
+		this.shardRouter = shardRouter;
+		this.shards = List.copyOf(shards);
+		Map<Object, Object> targetDataSources = new HashMap<>();
+		for (int shard = 0; shard < this.shards.size(); shard++) {
+			targetDataSources.put(shard, this.shards.get(shard));
+		}
+		setTargetDataSources(targetDataSources);
+		setDefaultTargetDataSource(this.shards.get(0));
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return this.shardRouter.currentShard();
+	}
+
+	public List<HikariDataSource> getShards() {
+		return this.shards;
+	}
+
+	@Override
+	public void close() {
+		this.shards.forEach(HikariDataSource::close);
+	}
+
+}
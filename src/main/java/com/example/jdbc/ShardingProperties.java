@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+@ConfigurationProperties("sharding")
+public record ShardingProperties(@DefaultValue("false") boolean enabled, @DefaultValue List<Shard> shards,
+		@DefaultValue("512") int virtualNodes) {
+
+	public ShardingProperties {
+		Assert.isTrue(!enabled || !shards.isEmpty(), "'sharding.shards' must not be empty when sharding is enabled");
+		Assert.isTrue(shards.size() <= ShardRouter.MAX_SHARDS,
+				"'sharding.shards' must not have more than " + ShardRouter.MAX_SHARDS + " entries");
+		Assert.isTrue(virtualNodes > 0, "'sharding.virtual-nodes' must be greater than 0");
+	}
+
+	// Shards without a password authenticate with DSQL tokens
+	public record Shard(String url, String username, @Nullable String password) {
+
+		public Shard {
+			Assert.hasText(url, "'sharding.shards[].url' must not be empty");
+			Assert.hasText(username, "'sharding.shards[].username' must not be empty");
+		}
+
+	}
+
+}
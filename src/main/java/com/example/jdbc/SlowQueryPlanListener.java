@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.sql.DataSource;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.stereotype.Component;
+
+// Explains a sample of the statements slower than the threshold, each SQL at most once
+// per min-interval. The plan is taken with plain EXPLAIN, which does not run the
+// statement, with the same parameters on another connection of the pool the statement
+// ran on, and bypasses datasource-proxy so that it is neither counted nor explained.
+// Only the types of the parameters are kept, not their values.
+@Component
+@ConditionalOnProperty(name = "slow-query-plans.enabled", havingValue = "true")
+@EnableConfigurationProperties(SlowQueryPlanProperties.class)
+public class SlowQueryPlanListener implements QueryExecutionListener {
+
+	private final Logger log = LoggerFactory.getLogger(SlowQueryPlanListener.class);
+
+	private final SlowQueryPlanProperties properties;
+
+	// The data source is wrapped by datasource-proxy, which needs this listener first
+	private final ObjectProvider<DataSource> dataSource;
+
+	private final ShardRouter shardRouter;
+
+	private final SimpleAsyncTaskScheduler taskScheduler;
+
+	private final Clock clock;
+
+	private final Map<String, Instant> lastExplained = new ConcurrentHashMap<>();
+
+	private final Deque<SlowQueryPlan> plans = new ArrayDeque<>();
+
+	public SlowQueryPlanListener(SlowQueryPlanProperties properties, ObjectProvider<DataSource> dataSource,
+			ShardRouter shardRouter, SimpleAsyncTaskScheduler taskScheduler, Clock clock) {
+		this.properties = properties;
+		this.dataSource = dataSource;
+		this.shardRouter = shardRouter;
+		this.taskScheduler = taskScheduler;
+		this.clock = clock;
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		if (execInfo.getElapsedTime() < this.properties.threshold().toMillis() || queryInfoList.isEmpty()
+				|| ThreadLocalRandom.current().nextDouble() >= this.properties.sampleRate()) {
+			return;
+		}
+		QueryInfo query = queryInfoList.get(0);
+		String sql = query.getQuery();
+		Instant now = this.clock.instant();
+		if (!claim(sql, now)) {
+			return;
+		}
+		// The parameters of the first statement of a batch
+		List<ParameterSetOperation> parameters = new ArrayList<>(
+				query.getParametersList().isEmpty() ? List.of() : query.getParametersList().get(0));
+		parameters.sort(Comparator.comparingInt(parameter -> (Integer) parameter.getArgs()[0]));
+		Integer shard = this.shardRouter.currentShard();
+		long elapsed = execInfo.getElapsedTime();
+		this.taskScheduler.execute(() -> explain(sql, parameters, shard, elapsed, now));
+	}
+
+	// Explains each SQL at most once per min-interval. Expired claims are dropped, as
+	// expanded IN lists make a new SQL for every list size.
+	private boolean claim(String sql, Instant now) {
+		this.lastExplained.values().removeIf(last -> !last.plus(this.properties.minInterval()).isAfter(now));
+		Instant claimed = this.lastExplained.merge(sql, now,
+				(last, current) -> last.plus(this.properties.minInterval()).isAfter(current) ? last : current);
+		return claimed == now;
+	}
+
+	public List<SlowQueryPlan> plans() {
+		synchronized (this.plans) {
+			return List.copyOf(this.plans);
+		}
+	}
+
+	private void explain(String sql, List<ParameterSetOperation> parameters, @Nullable Integer shard, long elapsed,
+			Instant at) {
+		try (Connection connection = pool(shard).getConnection();
+				PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+			statement.setQueryTimeout(5);
+			List<String> parameterTypes = new ArrayList<>();
+			for (ParameterSetOperation parameter : parameters) {
+				Object[] args = parameter.getArgs();
+				int index = (Integer) args[0];
+				if (parameter.getMethod().getName().equals("setNull")) {
+					statement.setNull(index, (Integer) args[1]);
+					parameterTypes.add("null");
+				}
+				else {
+					statement.setObject(index, args[1]);
+					parameterTypes.add((args[1] != null) ? args[1].getClass().getSimpleName() : "null");
+				}
+			}
+			StringBuilder plan = new StringBuilder();
+			try (ResultSet rs = statement.executeQuery()) {
+				while (rs.next()) {
+					plan.append(rs.getString(1)).append('\n');
+				}
+			}
+			SlowQueryPlan slowQueryPlan = new SlowQueryPlan(at, sql, parameterTypes, elapsed, shard,
+					plan.toString().stripTrailing());
+			log.info("Slow query took {} ms: {}\n{}", elapsed, sql, slowQueryPlan.plan());
+			synchronized (this.plans) {
+				this.plans.addFirst(slowQueryPlan);
+				while (this.plans.size() > this.properties.capacity()) {
+					this.plans.removeLast();
+				}
+			}
+		}
+		catch (SQLException | RuntimeException e) {
+			log.warn("Failed to explain {}", sql, e);
+		}
+	}
+
+	// The pool the statement ran on, not the proxied data source
+	private DataSource pool(@Nullable Integer shard) throws SQLException {
+		DataSource dataSource = this.dataSource.getObject();
+		if (dataSource.isWrapperFor(ShardRoutingDataSource.class)) {
+			return dataSource.unwrap(ShardRoutingDataSource.class).getShards().get((shard != null) ? shard : 0);
+		}
+		if (dataSource.isWrapperFor(RegionalRoutingDataSource.class)) {
+			return dataSource.unwrap(RegionalRoutingDataSource.class).getCurrent().getDataSource();
+		}
+		return dataSource.unwrap(HikariDataSource.class);
+	}
+
+	public record SlowQueryPlan(Instant at, String sql, List<String> parameterTypes, long elapsedMillis,
+			@Nullable Integer shard, String plan) {
+	}
+
+}
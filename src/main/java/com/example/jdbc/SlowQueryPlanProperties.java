@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.Assert;
+
+@ConfigurationProperties("slow-query-plans")
+public record SlowQueryPlanProperties(@DefaultValue("false") boolean enabled, @DefaultValue("500ms") Duration threshold,
+		@DefaultValue("0.1") double sampleRate, @DefaultValue("1m") Duration minInterval,
+		@DefaultValue("50") int capacity) {
+
+	public SlowQueryPlanProperties {
+		Assert.isTrue(sampleRate > 0 && sampleRate <= 1, "'slow-query-plans.sample-rate' must be between 0 and 1");
+		Assert.isTrue(capacity > 0, "'slow-query-plans.capacity' must be positive");
+	}
+
+}
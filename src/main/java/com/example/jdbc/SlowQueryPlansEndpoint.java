@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import com.example.jdbc.SlowQueryPlanListener.SlowQueryPlan;
+import java.util.List;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// The most recent slow statement plans, newest first
+@Component
+@Endpoint(id = "slowqueries")
+@ConditionalOnProperty(name = "slow-query-plans.enabled", havingValue = "true")
+public class SlowQueryPlansEndpoint {
+
+	private final SlowQueryPlanListener slowQueryPlanListener;
+
+	public SlowQueryPlansEndpoint(SlowQueryPlanListener slowQueryPlanListener) {
+		this.slowQueryPlanListener = slowQueryPlanListener;
+	}
+
+	@ReadOperation
+	public List<SlowQueryPlan> slowQueries() {
+		return this.slowQueryPlanListener.plans();
+	}
+
+}
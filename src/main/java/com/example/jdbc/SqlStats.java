@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+// Statements, round trips and rows of the SQL executed by the current request
+public final class SqlStats {
+
+	private static final ThreadLocal<SqlStats> current = new ThreadLocal<>();
+
+	private int statements;
+
+	private int roundTrips;
+
+	private long rowsRead;
+
+	private long rowsWritten;
+
+	// Set while the rows of an INSERT/UPDATE/DELETE ... RETURNING are fetched
+	boolean returning;
+
+	public static SqlStats current() {
+		return current.get();
+	}
+
+	public static SqlStats start() {
+		SqlStats stats = new SqlStats();
+		current.set(stats);
+		return stats;
+	}
+
+	public static void stop() {
+		current.remove();
+	}
+
+	void addStatements(int statements) {
+		this.statements += statements;
+		this.roundTrips++;
+	}
+
+	void addRoundTrip() {
+		this.roundTrips++;
+	}
+
+	void addRowRead() {
+		if (this.returning) {
+			this.rowsWritten++;
+		}
+		else {
+			this.rowsRead++;
+		}
+	}
+
+	void addRowsWritten(long rows) {
+		this.rowsWritten += rows;
+	}
+
+	public int statements() {
+		return this.statements;
+	}
+
+	public int roundTrips() {
+		return this.roundTrips;
+	}
+
+	public long rowsRead() {
+		return this.rowsRead;
+	}
+
+	public long rowsWritten() {
+		return this.rowsWritten;
+	}
+
+	@Override
+	public String toString() {
+		return "SqlStats[statements=" + this.statements + ", roundTrips=" + this.roundTrips + ", rowsRead="
+				+ this.rowsRead + ", rowsWritten=" + this.rowsWritten + "]";
+	}
+
+}
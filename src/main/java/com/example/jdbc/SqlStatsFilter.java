@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+@Component
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+	private final MeterRegistry meterRegistry;
+
+	public SqlStatsFilter(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		SqlStats stats = SqlStats.start();
+		try {
+			filterChain.doFilter(request, response);
+		}
+		finally {
+			SqlStats.stop();
+			record(request, stats);
+		}
+	}
+
+	private void record(HttpServletRequest request, SqlStats stats) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		Tags tags = Tags.of("method", request.getMethod(), "uri", pattern != null ? pattern.toString() : "UNKNOWN");
+		summary("sql.statements", "SQL statements executed per request", tags).record(stats.statements());
+		summary("sql.round-trips", "Database round trips per request", tags).record(stats.roundTrips());
+		summary("sql.rows.read", "Rows read per request", tags).record(stats.rowsRead());
+		summary("sql.rows.written", "Rows written per request", tags).record(stats.rowsWritten());
+	}
+
+	private DistributionSummary summary(String name, String description, Tags tags) {
+		return DistributionSummary.builder(name)
+			.description(description)
+			.tags(tags)
+			.publishPercentileHistogram()
+			.maximumExpectedValue(10_000.0)
+			.register(this.meterRegistry);
+	}
+
+}
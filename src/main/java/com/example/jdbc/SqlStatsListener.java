@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.List;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+import org.springframework.stereotype.Component;
+
+// Counts the SQL executed through datasource-proxy into the current SqlStats
+@Component
+public class SqlStatsListener implements QueryExecutionListener, MethodExecutionListener {
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		SqlStats stats = SqlStats.current();
+		if (stats == null) {
+			return;
+		}
+		// A batch is sent to the server in a single round trip
+		stats.addStatements(execInfo.isBatch() ? execInfo.getBatchSize() : queryInfoList.size());
+		Object result = execInfo.getResult();
+		stats.returning = result instanceof ResultSet && !queryInfoList.isEmpty()
+				&& isWrite(QueryUtils.getQueryType(queryInfoList.get(0).getQuery()));
+		if (result instanceof Number updateCount) {
+			stats.addRowsWritten(Math.max(0, updateCount.longValue()));
+		}
+		else if (result instanceof int[] updateCounts) {
+			for (int updateCount : updateCounts) {
+				stats.addRowsWritten(Math.max(0, updateCount));
+			}
+		}
+		else if (result instanceof long[] updateCounts) {
+			for (long updateCount : updateCounts) {
+				stats.addRowsWritten(Math.max(0, updateCount));
+			}
+		}
+	}
+
+	@Override
+	public void beforeMethod(MethodExecutionContext executionContext) {
+	}
+
+	@Override
+	public void afterMethod(MethodExecutionContext executionContext) {
+		SqlStats stats = SqlStats.current();
+		if (stats == null || executionContext.getThrown() != null) {
+			return;
+		}
+		Object target = executionContext.getTarget();
+		String methodName = executionContext.getMethod().getName();
+		if (target instanceof ResultSet) {
+			if (methodName.equals("next") && Boolean.TRUE.equals(executionContext.getResult())) {
+				stats.addRowRead();
+			}
+		}
+		else if (target instanceof Connection && (methodName.equals("commit") || methodName.equals("rollback"))) {
+			stats.addRoundTrip();
+		}
+	}
+
+	private static boolean isWrite(QueryType queryType) {
+		return queryType == QueryType.INSERT || queryType == QueryType.UPDATE || queryType == QueryType.DELETE;
+	}
+
+}
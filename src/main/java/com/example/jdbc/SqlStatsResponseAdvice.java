@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+// Adds the SQL executed so far as response headers, the body is written after the
+// transaction has completed
+@RestControllerAdvice
+@ConditionalOnProperty(name = "sql-stats.debug-headers", havingValue = "true")
+public class SqlStatsResponseAdvice implements ResponseBodyAdvice<Object> {
+
+	public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+
+	public static final String ROUND_TRIPS_HEADER = "X-Sql-Round-Trips";
+
+	public static final String ROWS_READ_HEADER = "X-Sql-Rows-Read";
+
+	public static final String ROWS_WRITTEN_HEADER = "X-Sql-Rows-Written";
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return true;
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+			Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+			ServerHttpResponse response) {
+		SqlStats stats = SqlStats.current();
+		if (stats != null) {
+			HttpHeaders headers = response.getHeaders();
+			headers.set(STATEMENTS_HEADER, String.valueOf(stats.statements()));
+			headers.set(ROUND_TRIPS_HEADER, String.valueOf(stats.roundTrips()));
+			headers.set(ROWS_READ_HEADER, String.valueOf(stats.rowsRead()));
+			headers.set(ROWS_WRITTEN_HEADER, String.valueOf(stats.rowsWritten()));
+		}
+		return body;
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+// Runs the schema scripts only when their content has not been applied yet. The version
+// of the scripts is the SHA-256 of their content, recorded in schema_versions once they
+// ran, so a startup against an initialized database issues a single query instead of
+// re-running every DDL statement. The scripts stay idempotent, as instances starting at
+// the same time may still run them concurrently.
+public class VersionedSchemaInitializer extends SqlDataSourceScriptDatabaseInitializer {
+
+	private final Logger log = LoggerFactory.getLogger(VersionedSchemaInitializer.class);
+
+	public VersionedSchemaInitializer(DataSource dataSource, SqlInitializationProperties properties) {
+		super(dataSource, properties);
+	}
+
+	@Override
+	protected void runScripts(Scripts scripts) {
+		String version = version(scripts);
+		List<String> names = new ArrayList<>();
+		scripts.forEach(script -> names.add(script.getFilename()));
+		JdbcClient jdbcClient = JdbcClient.create(getDataSource());
+		if (isApplied(jdbcClient, version)) {
+			log.info("Skipping {}, version {} is already applied", names, version);
+			return;
+		}
+		super.runScripts(scripts);
+		jdbcClient.sql("INSERT INTO schema_versions (version, scripts) VALUES (?, ?) ON CONFLICT DO NOTHING")
+			.param(version)
+			.param(String.join(",", names))
+			.update();
+		log.info("Applied {} as version {}", names, version);
+	}
+
+	private boolean isApplied(JdbcClient jdbcClient, String version) {
+		try {
+			return jdbcClient.sql("SELECT COUNT(*) FROM schema_versions WHERE version = ?")
+				.param(version)
+				.query(Long.class)
+				.single() > 0;
+		}
+		catch (BadSqlGrammarException e) {
+			// schema_versions does not exist before the first run
+			return false;
+		}
+	}
+
+	static String version(Iterable<Resource> scripts) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (Resource script : scripts) {
+				digest.update(script.getContentAsByteArray());
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Events are disabled unless turned on by a settings profile such as
+// src/main/jfr/demo-dsql.jfc
+@Name("com.example.CartOperation")
+@Label("Cart Operation")
+@Category({ "Demo DSQL", "Cart" })
+@Description("A call of CartService including its retries")
+@Enabled(false)
+@StackTrace(false)
+public class CartOperationEvent extends Event {
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Exception")
+	String exception;
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jfr;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Outside of the retries and the transaction, so an event spans the whole call
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CartOperationRecorder {
+
+	@Around("execution(public * com.example.cart.CartService.*(..))")
+	public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+		CartOperationEvent event = new CartOperationEvent();
+		if (!event.isEnabled()) {
+			return joinPoint.proceed();
+		}
+		event.begin();
+		try {
+			return joinPoint.proceed();
+		}
+		catch (Throwable ex) {
+			event.exception = ex.getClass().getName();
+			throw ex;
+		}
+		finally {
+			event.operation = joinPoint.getSignature().getName();
+			event.commit();
+		}
+	}
+
+}
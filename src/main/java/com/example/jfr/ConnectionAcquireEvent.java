@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.ConnectionAcquire")
+@Label("Connection Acquire")
+@Category({ "Demo DSQL", "JDBC" })
+@Description("Waiting for a connection from a Hikari pool")
+@Enabled(false)
+public class ConnectionAcquireEvent extends Event {
+
+	@Label("Pool")
+	String pool;
+
+	@Label("Exception")
+	String exception;
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jfr;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.List;
+import javax.sql.DataSource;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.stereotype.Component;
+
+// Records statements and connection acquisitions seen by datasource-proxy. The events
+// are begun before and committed after the call, so they line up with the other events
+// of the thread.
+@Component
+public class JfrJdbcListener implements QueryExecutionListener, MethodExecutionListener {
+
+	private static final String EVENT = JfrJdbcListener.class.getName();
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		SqlStatementEvent event = new SqlStatementEvent();
+		if (event.isEnabled()) {
+			event.begin();
+			execInfo.addCustomValue(EVENT, event);
+		}
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		SqlStatementEvent event = execInfo.getCustomValue(EVENT, SqlStatementEvent.class);
+		if (event == null) {
+			return;
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.sql = queryInfoList.isEmpty() ? null : queryInfoList.get(0).getQuery();
+			event.batchSize = execInfo.isBatch() ? execInfo.getBatchSize() : queryInfoList.size();
+			event.dataSource = execInfo.getDataSourceName();
+			if (execInfo.getThrowable() != null) {
+				event.exception = execInfo.getThrowable().getClass().getName();
+			}
+			event.commit();
+		}
+	}
+
+	@Override
+	public void beforeMethod(MethodExecutionContext executionContext) {
+		if (isGetConnection(executionContext)) {
+			ConnectionAcquireEvent event = new ConnectionAcquireEvent();
+			if (event.isEnabled()) {
+				event.begin();
+				executionContext.addCustomValue(EVENT, event);
+			}
+		}
+	}
+
+	@Override
+	public void afterMethod(MethodExecutionContext executionContext) {
+		ConnectionAcquireEvent event = executionContext.getCustomValue(EVENT, ConnectionAcquireEvent.class);
+		if (event == null) {
+			return;
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.pool = (executionContext.getTarget() instanceof HikariDataSource hikari) ? hikari.getPoolName()
+					: executionContext.getProxyConfig().getDataSourceName();
+			if (executionContext.getThrown() != null) {
+				event.exception = executionContext.getThrown().getClass().getName();
+			}
+			event.commit();
+		}
+	}
+
+	private static boolean isGetConnection(MethodExecutionContext executionContext) {
+		return executionContext.getTarget() instanceof DataSource
+				&& executionContext.getMethod().getName().equals("getConnection");
+	}
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.RetryAttempt")
+@Label("Retry Attempt")
+@Category({ "Demo DSQL", "Retry" })
+@Description("An attempt of a retryable operation, including the backoff before it")
+@Enabled(false)
+@StackTrace(false)
+public class RetryAttemptEvent extends Event {
+
+	@Label("Operation")
+	public String operation;
+
+	@Label("Attempt")
+	public int attempt;
+
+	@Label("Exception")
+	public String exception;
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// The stack trace tells the repository method that executed the statement
+@Name("com.example.SqlStatement")
+@Label("SQL Statement")
+@Category({ "Demo DSQL", "JDBC" })
+@Description("A statement or batch executed through datasource-proxy")
+@Enabled(false)
+public class SqlStatementEvent extends Event {
+
+	@Label("SQL")
+	String sql;
+
+	@Label("Batch Size")
+	int batchSize;
+
+	@Label("Data Source")
+	String dataSource;
+
+	@Label("Exception")
+	String exception;
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.TokenRefresh")
+@Label("Token Refresh")
+@Category({ "Demo DSQL", "JDBC" })
+@Description("Generating a DSQL token and evicting the connections of a pool")
+@Enabled(false)
+@StackTrace(false)
+public class TokenRefreshEvent extends Event {
+
+	@Label("Pool")
+	public String pool;
+
+	@Label("Exception")
+	public String exception;
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.retry;
+
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.backoff.Sleeper;
+import org.springframework.retry.backoff.ThreadWaitSleeper;
+import org.springframework.retry.support.RetrySynchronizationManager;
+import org.springframework.stereotype.Component;
+
+// Picked up by @EnableRetry for @Retryable backoff; records the time slept on the
+// current RetryContext so that RetryLoggingListener can publish it
+@Component
+public class BackoffRecordingSleeper implements Sleeper {
+
+	private final Sleeper delegate = new ThreadWaitSleeper();
+
+	@Override
+	public void sleep(long backOffPeriod) throws InterruptedException {
+		RetryContext context = RetrySynchronizationManager.getContext();
+		if (context != null) {
+			Long backoffTime = (Long) context.getAttribute(RetryLoggingListener.BACKOFF_TIME);
+			context.setAttribute(RetryLoggingListener.BACKOFF_TIME,
+					(backoffTime == null ? 0 : backoffTime) + backOffPeriod);
+		}
+		this.delegate.sleep(backOffPeriod);
+	}
+
+}
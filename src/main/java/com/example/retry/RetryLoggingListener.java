@@ -15,22 +15,181 @@
  */
 package com.example.retry;
 
+import com.example.jfr.RetryAttemptEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aopalliance.intercept.MethodInvocation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.classify.BinaryExceptionClassifier;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.retry.RetryCallback;
 import org.springframework.retry.RetryContext;
 import org.springframework.retry.RetryListener;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.retry.interceptor.MethodInvocationRetryCallback;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 
 @Component
 public class RetryLoggingListener implements RetryListener {
 
+	static final String OPERATION = "metrics.operation";
+
+	static final String START_TIME = "metrics.start-time";
+
+	static final String BACKOFF_TIME = "metrics.backoff-time";
+
+	static final String ATTEMPT_EVENT = "jfr.attempt-event";
+
 	private final Logger log = LoggerFactory.getLogger(RetryLoggingListener.class);
 
+	private final MeterRegistry meterRegistry;
+
+	private final Map<Method, BinaryExceptionClassifier> classifiers = new ConcurrentHashMap<>();
+
+	public RetryLoggingListener(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public <T, E extends Throwable> boolean open(RetryContext context, RetryCallback<T, E> callback) {
+		context.setAttribute(OPERATION, operation(context, callback));
+		context.setAttribute(START_TIME, System.nanoTime());
+		beginAttempt(context);
+		return true;
+	}
+
 	@Override
 	public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback,
 			Throwable throwable) {
 		log.info("onError: {}", context);
+		Counter.builder("retry.errors")
+			.description("Failed attempts of retryable operations")
+			.tag("operation", (String) context.getAttribute(OPERATION))
+			.tag("exception", throwable.getClass().getSimpleName())
+			.register(this.meterRegistry)
+			.increment();
+		commitAttempt(context, throwable);
+		beginAttempt(context);
+	}
+
+	@Override
+	public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback,
+			Throwable throwable) {
+		if (!(context.getAttribute(START_TIME) instanceof Long startTime)) {
+			return;
+		}
+		// The last attempt failed if it was not retried, and onError recorded it then
+		if (throwable == null) {
+			commitAttempt(context, null);
+		}
+		String operation = (String) context.getAttribute(OPERATION);
+		String outcome = outcome(context, throwable, isRetryable(callback, throwable));
+		// Every attempt before the last one failed and registered its exception
+		int attempts = throwable == null ? context.getRetryCount() + 1 : Math.max(1, context.getRetryCount());
+		Timer.builder("retry.operation")
+			.description("Total duration of retryable operations including backoff")
+			.tag("operation", operation)
+			.tag("outcome", outcome)
+			.register(this.meterRegistry)
+			.record(Duration.ofNanos(System.nanoTime() - startTime));
+		DistributionSummary.builder("retry.attempts")
+			.description("Number of attempts per retryable operation")
+			.tag("operation", operation)
+			.tag("outcome", outcome)
+			.serviceLevelObjectives(1, 2, 3, 4, 5)
+			.register(this.meterRegistry)
+			.record(attempts);
+		if (context.getAttribute(BACKOFF_TIME) instanceof Long backoffMillis) {
+			Timer.builder("retry.backoff")
+				.description("Time spent in backoff per retried operation")
+				.tag("operation", operation)
+				.tag("outcome", outcome)
+				.register(this.meterRegistry)
+				.record(Duration.ofMillis(backoffMillis));
+		}
+	}
+
+	// An attempt is begun when the operation is opened and after each failure, so it
+	// includes the backoff before it
+	private static void beginAttempt(RetryContext context) {
+		RetryAttemptEvent event = new RetryAttemptEvent();
+		if (event.isEnabled()) {
+			event.begin();
+			context.setAttribute(ATTEMPT_EVENT, event);
+		}
+	}
+
+	private static void commitAttempt(RetryContext context, Throwable throwable) {
+		if (context.removeAttribute(ATTEMPT_EVENT) instanceof RetryAttemptEvent event) {
+			event.operation = (String) context.getAttribute(OPERATION);
+			event.attempt = throwable == null ? context.getRetryCount() + 1 : context.getRetryCount();
+			event.exception = throwable == null ? null : throwable.getClass().getName();
+			event.commit();
+		}
+	}
+
+	static String outcome(RetryContext context, Throwable throwable, boolean retryable) {
+		if (throwable == null) {
+			return context.getRetryCount() == 0 ? "first_try_success" : "success_after_retry";
+		}
+		// RetryTemplate marks non-retryable failures as exhausted too, so the final
+		// exception decides whether the attempts ran out
+		return retryable ? "exhausted" : "failure";
+	}
+
+	// Classifies the exception like the retry policy that @Retryable builds from the
+	// same attributes
+	private boolean isRetryable(RetryCallback<?, ?> callback, Throwable throwable) {
+		if (throwable == null) {
+			return false;
+		}
+		if (!(callback instanceof MethodInvocationRetryCallback<?, ?> methodCallback)) {
+			// The default policy of RetryTemplate
+			return throwable instanceof Exception;
+		}
+		MethodInvocation invocation = methodCallback.getInvocation();
+		return this.classifiers.computeIfAbsent(invocation.getMethod(), method -> classifier(method, invocation))
+			.classify(throwable);
+	}
+
+	private static BinaryExceptionClassifier classifier(Method method, MethodInvocation invocation) {
+		Retryable retryable = AnnotatedElementUtils.findMergedAnnotation(method, Retryable.class);
+		if (retryable == null && invocation.getThis() != null) {
+			retryable = AnnotatedElementUtils.findMergedAnnotation(ClassUtils.getUserClass(invocation.getThis()),
+					Retryable.class);
+		}
+		Map<Class<? extends Throwable>, Boolean> types = new HashMap<>();
+		if (retryable != null) {
+			for (Class<? extends Throwable> type : retryable.retryFor()) {
+				types.put(type, true);
+			}
+			for (Class<? extends Throwable> type : retryable.noRetryFor()) {
+				types.put(type, false);
+			}
+		}
+		if (types.isEmpty()) {
+			return new BinaryExceptionClassifier(Map.of(Exception.class, true), false, false);
+		}
+		// Anything not excluded is retried when no exception is listed for retry
+		return new BinaryExceptionClassifier(types, retryable.retryFor().length == 0, true);
+	}
+
+	static String operation(RetryContext context, RetryCallback<?, ?> callback) {
+		if (callback instanceof MethodInvocationRetryCallback<?, ?> methodCallback) {
+			Method method = methodCallback.getInvocation().getMethod();
+			return ClassUtils.getShortName(method.getDeclaringClass()) + "." + method.getName();
+		}
+		Object name = context.getAttribute(RetryContext.NAME);
+		return name != null ? name.toString() : "unknown";
 	}
 
 }
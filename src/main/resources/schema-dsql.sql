@@ -6,6 +6,10 @@ CREATE TABLE IF NOT EXISTS carts (
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+-- The items of a cart as a JSON array when cart.storage=document, NULL while they are
+-- rows in cart_items. TEXT, as DSQL has no JSON column types.
+ALTER TABLE carts ADD COLUMN IF NOT EXISTS items TEXT;
+
 -- Create cart_items table
 CREATE TABLE IF NOT EXISTS cart_items (
     id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
@@ -20,8 +24,36 @@ CREATE TABLE IF NOT EXISTS cart_items (
 
 -- Create indexes for better performance
 CREATE INDEX ASYNC IF NOT EXISTS idx_carts_user_id ON carts(user_id);
+CREATE INDEX ASYNC IF NOT EXISTS idx_carts_updated_at ON carts(updated_at);
 CREATE INDEX ASYNC IF NOT EXISTS idx_cart_items_cart_id ON cart_items(cart_id);
 CREATE INDEX ASYNC IF NOT EXISTS idx_cart_items_product_id ON cart_items(product_id);
 
 -- Create unique constraint to prevent duplicate products in the same cart
-CREATE UNIQUE INDEX ASYNC IF NOT EXISTS idx_cart_items_cart_product ON cart_items(cart_id, product_id);
\ No newline at end of file
+CREATE UNIQUE INDEX ASYNC IF NOT EXISTS idx_cart_items_cart_product ON cart_items(cart_id, product_id);
+
+-- Create idempotency_keys table for the durable idempotency key store
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    fingerprint VARCHAR(64) NOT NULL,
+    response_status INTEGER,
+    response_content_type VARCHAR(255),
+    response_body TEXT,
+    created_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+CREATE INDEX ASYNC IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys(expires_at);
+
+-- Create retired_carts table for the carts whose header is deleted while their items are
+-- still being purged, see CartRepository.retireCart
+CREATE TABLE IF NOT EXISTS retired_carts (
+    cart_id UUID PRIMARY KEY,
+    retired_at TIMESTAMP NOT NULL
+);
+CREATE INDEX ASYNC IF NOT EXISTS idx_retired_carts_retired_at ON retired_carts(retired_at);
+
+-- Create schema_versions table for the versions of these scripts already applied
+CREATE TABLE IF NOT EXISTS schema_versions (
+    version VARCHAR(64) PRIMARY KEY,
+    scripts VARCHAR(1024) NOT NULL,
+    applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// A TCP proxy that delays every chunk it forwards in either direction, to put a local
+// database behind the latency of a remote region. When down, it drops its connections
+// and closes new ones at once. It runs on platform threads, so it keeps forwarding
+// whatever the application does to the carriers of virtual threads.
+public class LatencyProxy implements Closeable {
+
+	private final ServerSocket serverSocket;
+
+	private final String host;
+
+	private final int port;
+
+	private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+
+	private volatile Duration latency = Duration.ZERO;
+
+	private volatile boolean down;
+
+	public LatencyProxy(String host, int port) throws IOException {
+		this.host = host;
+		this.port = port;
+		this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		Thread.ofPlatform().daemon().name("latency-proxy-" + getPort()).start(this::accept);
+	}
+
+	public int getPort() {
+		return this.serverSocket.getLocalPort();
+	}
+
+	public void setLatency(Duration latency) {
+		this.latency = latency;
+	}
+
+	public void setDown(boolean down) {
+		this.down = down;
+		if (down) {
+			this.sockets.forEach(LatencyProxy::closeQuietly);
+		}
+	}
+
+	private void accept() {
+		while (!this.serverSocket.isClosed()) {
+			try {
+				Socket client = this.serverSocket.accept();
+				if (this.down) {
+					closeQuietly(client);
+					continue;
+				}
+				Socket server = new Socket(this.host, this.port);
+				this.sockets.add(client);
+				this.sockets.add(server);
+				Thread.ofPlatform().daemon().start(() -> forward(client, server));
+				Thread.ofPlatform().daemon().start(() -> forward(server, client));
+			}
+			catch (IOException ex) {
+				// Closed
+			}
+		}
+	}
+
+	private void forward(Socket from, Socket to) {
+		byte[] buffer = new byte[8192];
+		try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				Duration delay = this.latency;
+				if (delay.isPositive()) {
+					Thread.sleep(delay);
+				}
+				out.write(buffer, 0, read);
+				out.flush();
+			}
+		}
+		catch (IOException | InterruptedException ex) {
+			// Either side closed
+		}
+		finally {
+			closeQuietly(from);
+			closeQuietly(to);
+			this.sockets.remove(from);
+			this.sockets.remove(to);
+		}
+	}
+
+	@Override
+	public void close() {
+		closeQuietly(this.serverSocket);
+		this.sockets.forEach(LatencyProxy::closeQuietly);
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		}
+		catch (IOException ex) {
+			// Ignore
+		}
+	}
+
+}
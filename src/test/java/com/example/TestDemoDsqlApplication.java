@@ -15,13 +15,14 @@
  */
 package com.example;
 
+import com.example.config.ConflictInjectionConfiguration;
 import org.springframework.boot.SpringApplication;
 
 public class TestDemoDsqlApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.from(DemoDsqlApplication::main)
-			.with(TestcontainersConfiguration.class)
+			.with(TestcontainersConfiguration.class, ConflictInjectionConfiguration.class)
 			.run("--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql");
 	}
 
@@ -15,9 +15,17 @@
  */
 package com.example;
 
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.IOException;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.test.context.DynamicPropertyRegistrar;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.utility.DockerImageName;
 
@@ -30,4 +38,71 @@ public class TestcontainersConfiguration {
 		return new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"));
 	}
 
+	// Spring Boot backs off from the DataSource once R2DBC is configured, but the schema
+	// initialization and the chunked purges still run on JDBC
+	@Bean
+	@Profile("r2dbc")
+	HikariDataSource dataSource(JdbcConnectionDetails connectionDetails) {
+		return DataSourceBuilder.create()
+			.type(HikariDataSource.class)
+			.driverClassName(connectionDetails.getDriverClassName())
+			.url(connectionDetails.getJdbcUrl())
+			.username(connectionDetails.getUsername())
+			.password(connectionDetails.getPassword())
+			.build();
+	}
+
+	// Two shards, the first one on the same container as the default data source
+	@Bean
+	@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+	PostgreSQLContainer<?> secondShardContainer() {
+		return new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"));
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+	DynamicPropertyRegistrar shardProperties(PostgreSQLContainer<?> postgresContainer,
+			PostgreSQLContainer<?> secondShardContainer) {
+		List<PostgreSQLContainer<?>> shards = List.of(postgresContainer, secondShardContainer);
+		return registry -> {
+			for (int i = 0; i < shards.size(); i++) {
+				PostgreSQLContainer<?> shard = shards.get(i);
+				registry.add("sharding.shards[" + i + "].url", shard::getJdbcUrl);
+				registry.add("sharding.shards[" + i + "].username", shard::getUsername);
+				registry.add("sharding.shards[" + i + "].password", shard::getPassword);
+			}
+		};
+	}
+
+	// Two peered endpoints of the same database, each behind a proxy that can add latency
+	// or go down
+	@Bean
+	@ConditionalOnProperty(name = "regional-endpoints.enabled", havingValue = "true")
+	LatencyProxy firstEndpointProxy(PostgreSQLContainer<?> postgresContainer) throws IOException {
+		return new LatencyProxy(postgresContainer.getHost(), postgresContainer.getFirstMappedPort());
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "regional-endpoints.enabled", havingValue = "true")
+	LatencyProxy secondEndpointProxy(PostgreSQLContainer<?> postgresContainer) throws IOException {
+		return new LatencyProxy(postgresContainer.getHost(), postgresContainer.getFirstMappedPort());
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "regional-endpoints.enabled", havingValue = "true")
+	DynamicPropertyRegistrar regionalEndpointProperties(PostgreSQLContainer<?> postgresContainer,
+			LatencyProxy firstEndpointProxy, LatencyProxy secondEndpointProxy) {
+		List<LatencyProxy> proxies = List.of(firstEndpointProxy, secondEndpointProxy);
+		return registry -> {
+			for (int i = 0; i < proxies.size(); i++) {
+				LatencyProxy proxy = proxies.get(i);
+				registry.add("regional-endpoints.endpoints[" + i + "].name", () -> "region-" + proxy.getPort());
+				registry.add("regional-endpoints.endpoints[" + i + "].url", () -> "jdbc:postgresql://localhost:"
+						+ proxy.getPort() + "/" + postgresContainer.getDatabaseName());
+				registry.add("regional-endpoints.endpoints[" + i + "].username", postgresContainer::getUsername);
+				registry.add("regional-endpoints.endpoints[" + i + "].password", postgresContainer::getPassword);
+			}
+		};
+	}
+
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+import com.example.TestcontainersConfiguration;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql",
+		"--cart.sweeper.enabled=true", "--cart.sweeper.ttl=1d", "--cart.sweeper.interval=1h",
+		"--cart.sweeper.chunk-size=2", "--cart.sweeper.rows-per-second=1000000" })
+class CartSweeperIntegrationTest {
+
+	@Autowired
+	CartSweeper cartSweeper;
+
+	@Autowired
+	CartService cartService;
+
+	@Autowired
+	CartRepository cartRepository;
+
+	@Autowired
+	JdbcClient jdbcClient;
+
+	@Test
+	void sweepIdleCarts() {
+		UUID idle = createCart("idle-user", 5);
+		UUID active = createCart("active-user", 1);
+		this.jdbcClient.sql("UPDATE carts SET updated_at = ? WHERE id = ?")
+			.param(OffsetDateTime.now().minusDays(2))
+			.param(idle)
+			.update();
+
+		this.cartSweeper.sweep();
+
+		assertThat(countCarts(idle)).isZero();
+		assertThat(countItems(idle)).isZero();
+		assertThat(countCarts(active)).isOne();
+		assertThat(countItems(active)).isOne();
+	}
+
+	@Test
+	void resumeInterruptedSweep() {
+		UUID idle = createCart("interrupted-user", 5);
+		OffsetDateTime updatedAt = OffsetDateTime.now().minusDays(2);
+		this.jdbcClient.sql("UPDATE carts SET updated_at = ? WHERE id = ?").param(updatedAt).param(idle).update();
+		// A run that stopped after its first chunk leaves the idle cart with the other
+		// items
+		this.cartRepository.deleteIdleCartItemsChunk(List.of(idle), updatedAt.plusSeconds(1), 2);
+		assertThat(countCarts(idle)).isOne();
+		assertThat(countItems(idle)).isEqualTo(3);
+
+		this.cartSweeper.sweep();
+
+		assertThat(countCarts(idle)).isZero();
+		assertThat(countItems(idle)).isZero();
+	}
+
+	@Test
+	void resumeIncompletePurges() {
+		UUID retired = createCart("retired-user", 5);
+		// Retired without the purge after commit, as if the application had stopped
+		this.cartRepository.retireCart(retired);
+		this.jdbcClient.sql("UPDATE retired_carts SET retired_at = ? WHERE cart_id = ?")
+			.param(OffsetDateTime.now().minusDays(2))
+			.param(retired)
+			.update();
+
+		this.cartSweeper.sweep();
+
+		assertThat(countItems(retired)).isZero();
+		assertThat(this.jdbcClient.sql("SELECT COUNT(*) FROM retired_carts WHERE cart_id = ?")
+			.param(retired)
+			.query(Long.class)
+			.single()).isZero();
+	}
+
+	UUID createCart(String userId, int items) {
+		for (int i = 0; i < items; i++) {
+			this.cartService.addToCart(userId,
+					new CartService.AddToCartRequest("product-" + i, "Product " + i, BigDecimal.ONE, 1));
+		}
+		return this.cartService.getOrCreateCart(userId).getId();
+	}
+
+	long countCarts(UUID cartId) {
+		return this.jdbcClient.sql("SELECT COUNT(*) FROM carts WHERE id = ?").param(cartId).query(Long.class).single();
+	}
+
+	long countItems(UUID cartId) {
+		return this.jdbcClient.sql("SELECT COUNT(*) FROM cart_items WHERE cart_id = ?")
+			.param(cartId)
+			.query(Long.class)
+			.single();
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart;
+
+import com.example.TestcontainersConfiguration;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql",
+		"--chunked-mutation.chunk-size=2" })
+class ChunkedCartMutationIntegrationTest {
+
+	@Autowired
+	CartService cartService;
+
+	@Autowired
+	JdbcClient jdbcClient;
+
+	@Test
+	void clearLargeCart() {
+		UUID cartId = createCart("clear-user", 5);
+
+		this.cartService.clearCart("clear-user");
+
+		Cart cart = this.cartService.getOrCreateCart("clear-user");
+		assertThat(cart.getId()).isNotEqualTo(cartId);
+		assertThat(cart.getItems()).isEmpty();
+		await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+			assertThat(countItems(cartId)).isZero();
+			assertThat(countRetired(cartId)).isZero();
+		});
+	}
+
+	@Test
+	void clearSmallCart() {
+		UUID cartId = createCart("clear-small-user", 2);
+
+		this.cartService.clearCart("clear-small-user");
+
+		Cart cart = this.cartService.getOrCreateCart("clear-small-user");
+		assertThat(cart.getId()).isEqualTo(cartId);
+		assertThat(cart.getItems()).isEmpty();
+	}
+
+	@Test
+	void deleteLargeCart() {
+		UUID cartId = createCart("delete-user", 5);
+
+		this.cartService.deleteCart("delete-user");
+
+		assertThat(this.cartService.getOrCreateCart("delete-user").getId()).isNotEqualTo(cartId);
+		await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(countItems(cartId)).isZero());
+	}
+
+	UUID createCart(String userId, int items) {
+		for (int i = 0; i < items; i++) {
+			this.cartService.addToCart(userId,
+					new CartService.AddToCartRequest("product-" + i, "Product " + i, BigDecimal.ONE, 1));
+		}
+		return this.cartService.getOrCreateCart(userId).getId();
+	}
+
+	long countItems(UUID cartId) {
+		return this.jdbcClient.sql("SELECT COUNT(*) FROM cart_items WHERE cart_id = ?")
+			.param(cartId)
+			.query(Long.class)
+			.single();
+	}
+
+	long countRetired(UUID cartId) {
+		return this.jdbcClient.sql("SELECT COUNT(*) FROM retired_carts WHERE cart_id = ?")
+			.param(cartId)
+			.query(Long.class)
+			.single();
+	}
+
+}
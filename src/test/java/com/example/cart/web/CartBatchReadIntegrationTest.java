@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart.web;
+
+import com.example.TestcontainersConfiguration;
+import com.example.cart.CartService;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClient;
+
+import static com.example.cart.web.CartSqlBudgetIntegrationTest.assertBudget;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql",
+				"--sql-stats.debug-headers=true" })
+class CartBatchReadIntegrationTest {
+
+	RestClient restClient;
+
+	@BeforeEach
+	void setUp(@LocalServerPort int port, @Autowired RestClient.Builder restClientBuilder) {
+		this.restClient = restClientBuilder.baseUrl("http://localhost:" + port)
+			.defaultStatusHandler(__ -> true, (req, res) -> {
+			})
+			.build();
+	}
+
+	@Test
+	void readCartsByIds() {
+		List<String> cartIds = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			String userId = "user-" + UUID.randomUUID();
+			addItem(userId, "product-1", i + 1);
+			cartIds.add(addItem(userId, "product-2", 1).get("id").asText());
+		}
+		Collections.reverse(cartIds);
+		List<String> requested = new ArrayList<>(cartIds);
+		requested.add(UUID.randomUUID().toString());
+
+		ResponseEntity<JsonNode> response = batch(Map.of("cartIds", requested));
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		// SELECT carts, SELECT items, outside a transaction
+		assertBudget(response.getHeaders(), 2, 2);
+		JsonNode carts = response.getBody();
+		assertThat(carts).extracting(cart -> cart.get("id").asText()).containsExactlyElementsOf(cartIds);
+		assertThat(carts).allSatisfy(cart -> assertThat(cart.get("items").size()).isEqualTo(2));
+		assertThat(carts.get(0).get("items").get(0).get("quantity").asInt()).isEqualTo(5);
+	}
+
+	@Test
+	void readCartsByUserIds() {
+		String userId = "user-" + UUID.randomUUID();
+		String cartId = addItem(userId, "product-1", 1).get("id").asText();
+		String otherUserId = "user-" + UUID.randomUUID();
+		String otherCartId = addItem(otherUserId, "product-1", 1).get("id").asText();
+
+		// A cart asked for twice is returned once
+		ResponseEntity<JsonNode> response = batch(Map.of("cartIds", List.of(cartId), "userIds",
+				List.of(userId, otherUserId, "user-" + UUID.randomUUID())));
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody()).extracting(cart -> cart.get("id").asText()).containsExactly(cartId, otherCartId);
+	}
+
+	@Test
+	void tooManyCarts() {
+		List<String> userIds = IntStream.range(0, 101).mapToObj(i -> "user-" + i).toList();
+		assertThat(batch(Map.of("userIds", userIds)).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	ResponseEntity<JsonNode> batch(Map<String, List<String>> request) {
+		return this.restClient.post().uri("/api/v1/carts/batch").body(request).retrieve().toEntity(JsonNode.class);
+	}
+
+	JsonNode addItem(String userId, String productId, int quantity) {
+		return this.restClient.post()
+			.uri("/api/v1/carts/items?userId={userId}", userId)
+			.body(new CartService.AddToCartRequest(productId, "Product " + productId, BigDecimal.TEN, quantity))
+			.retrieve()
+			.toEntity(JsonNode.class)
+			.getBody();
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart.web;
+
+import com.example.TestcontainersConfiguration;
+import com.example.cart.CartService;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql",
+				"--cart.changes.settle-time=0s" })
+class CartChangeFeedIntegrationTest {
+
+	RestClient restClient;
+
+	@BeforeEach
+	void setUp(@LocalServerPort int port, @Autowired RestClient.Builder restClientBuilder) {
+		this.restClient = restClientBuilder.baseUrl("http://localhost:" + port)
+			.defaultStatusHandler(__ -> true, (req, res) -> {
+			})
+			.build();
+	}
+
+	@Test
+	void followChanges() {
+		String prefix = "changes-" + UUID.randomUUID() + "-";
+		List<String> cartIds = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			cartIds.add(addItem(prefix + i).get("id").asText());
+		}
+
+		List<JsonNode> changes = new ArrayList<>();
+		String cursor = follow(null, changes);
+		List<String> seen = changes.stream()
+			.filter(change -> change.get("userId").asText().startsWith(prefix))
+			.map(change -> change.get("cartId").asText())
+			.toList();
+		assertThat(seen).containsExactlyElementsOf(cartIds);
+		for (int i = 1; i < changes.size(); i++) {
+			assertThat(updatedAt(changes.get(i))).isAfterOrEqualTo(updatedAt(changes.get(i - 1)));
+		}
+
+		addItem(prefix + 2);
+
+		List<JsonNode> next = new ArrayList<>();
+		String nextCursor = follow(cursor, next);
+		assertThat(next).hasSize(1);
+		assertThat(next.get(0).get("cartId").asText()).isEqualTo(cartIds.get(2));
+
+		// Nothing new, the cursor stays where it is
+		JsonNode empty = changes(nextCursor, 2).getBody();
+		assertThat(empty.get("changes").size()).isZero();
+		assertThat(empty.get("next").asText()).isEqualTo(nextCursor);
+		assertThat(empty.get("hasMore").asBoolean()).isFalse();
+	}
+
+	@Test
+	void invalidCursor() {
+		assertThat(changes("not-a-cursor", 2).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	void invalidLimit() {
+		assertThat(changes(null, 0).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	// Reads pages of two changes until there are no more and returns the last cursor
+	String follow(String cursor, List<JsonNode> changes) {
+		while (true) {
+			ResponseEntity<JsonNode> response = changes(cursor, 2);
+			assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+			JsonNode page = response.getBody();
+			assertThat(page.get("changes").size()).isLessThanOrEqualTo(2);
+			page.get("changes").forEach(changes::add);
+			cursor = page.get("next").asText();
+			if (!page.get("hasMore").asBoolean()) {
+				return cursor;
+			}
+		}
+	}
+
+	ResponseEntity<JsonNode> changes(String cursor, int limit) {
+		return this.restClient.get()
+			.uri(builder -> builder.path("/api/v1/carts/changes")
+				.queryParamIfPresent("since", Optional.ofNullable(cursor))
+				.queryParam("limit", limit)
+				.build())
+			.retrieve()
+			.toEntity(JsonNode.class);
+	}
+
+	OffsetDateTime updatedAt(JsonNode change) {
+		return OffsetDateTime.parse(change.get("updatedAt").asText());
+	}
+
+	JsonNode addItem(String userId) {
+		return this.restClient.post()
+			.uri("/api/v1/carts/items?userId={userId}", userId)
+			.body(new CartService.AddToCartRequest("product-1", "Product 1", BigDecimal.TEN, 1))
+			.retrieve()
+			.toEntity(JsonNode.class)
+			.getBody();
+	}
+
+}
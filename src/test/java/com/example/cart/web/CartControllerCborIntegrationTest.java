@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart.web;
+
+import com.example.TestcontainersConfiguration;
+import com.example.cart.CartService;
+import com.example.idempotency.IdempotencyFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql",
+				"--idempotency.store=jdbc" })
+class CartControllerCborIntegrationTest {
+
+	static final MediaType APPLICATION_CBOR = MediaType.parseMediaType("application/cbor");
+
+	final ObjectMapper cborMapper = new CBORMapper();
+
+	RestClient restClient;
+
+	String userId = "cbor-" + UUID.randomUUID();
+
+	@BeforeEach
+	void setUp(@LocalServerPort int port, @Autowired RestClient.Builder restClientBuilder) {
+		this.restClient = restClientBuilder.baseUrl("http://localhost:" + port).build();
+	}
+
+	@Test
+	void addToCartInCbor() throws Exception {
+		byte[] request = this.cborMapper
+			.writeValueAsBytes(new CartService.AddToCartRequest("product-1", "Product 1", new BigDecimal("999.99"), 2));
+
+		ResponseEntity<byte[]> response = this.restClient.post()
+			.uri("/api/v1/carts/items?userId={userId}", this.userId)
+			.contentType(APPLICATION_CBOR)
+			.accept(APPLICATION_CBOR)
+			.body(request)
+			.retrieve()
+			.toEntity(byte[].class);
+
+		assertThat(response.getHeaders().getContentType()).isEqualTo(APPLICATION_CBOR);
+		JsonNode cart = this.cborMapper.readTree(response.getBody());
+		assertThat(cart.get("userId").asText()).isEqualTo(this.userId);
+		JsonNode item = cart.get("items").get(0);
+		assertThat(item.get("price").isBigDecimal()).isTrue();
+		assertThat(item.get("price").decimalValue()).isEqualByComparingTo("999.99");
+		assertThat(cart.get("totalAmount").decimalValue()).isEqualByComparingTo("1999.98");
+		// Epoch seconds with nanoseconds rather than an ISO-8601 string
+		assertThat(cart.get("updatedAt").isNumber()).isTrue();
+		assertThat(Instant.ofEpochSecond(cart.get("updatedAt").longValue())).isAfter(Instant.now().minusSeconds(60));
+	}
+
+	// The stored response is binary, and the same key asks for the same format
+	@Test
+	void replayCborResponse() throws Exception {
+		byte[] request = this.cborMapper
+			.writeValueAsBytes(new CartService.AddToCartRequest("product-1", "Product 1", new BigDecimal("5.00"), 1));
+		String key = UUID.randomUUID().toString();
+
+		ResponseEntity<byte[]> first = addToCart(key, request, APPLICATION_CBOR);
+		ResponseEntity<byte[]> replayed = addToCart(key, request, APPLICATION_CBOR);
+
+		assertThat(replayed.getHeaders().getFirst(IdempotencyFilter.IDEMPOTENT_REPLAYED)).isEqualTo("true");
+		assertThat(replayed.getHeaders().getContentType()).isEqualTo(APPLICATION_CBOR);
+		assertThat(replayed.getBody()).isEqualTo(first.getBody());
+		assertThat(addToCart(key, request, MediaType.APPLICATION_JSON).getStatusCode())
+			.isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+	}
+
+	ResponseEntity<byte[]> addToCart(String key, byte[] request, MediaType accept) {
+		return this.restClient.post()
+			.uri("/api/v1/carts/items?userId={userId}", this.userId)
+			.header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+			.contentType(APPLICATION_CBOR)
+			.accept(accept)
+			.body(request)
+			.retrieve()
+			.onStatus(status -> true, (req, res) -> {
+			})
+			.toEntity(byte[].class);
+	}
+
+	@Test
+	void jsonIsTheDefault() {
+		ResponseEntity<String> response = this.restClient.get()
+			.uri("/api/v1/carts?userId={userId}", this.userId)
+			.accept(MediaType.ALL)
+			.retrieve()
+			.toEntity(String.class);
+
+		assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+	}
+
+}
@@ -54,7 +54,7 @@ class CartControllerIntegrationTest {
 
 	@Test
 	@Order(1)
-	void createCart() {
+	void getEmptyCart() {
 		ResponseEntity<JsonNode> response = this.restClient.get()
 			.uri("/api/v1/carts?userId={userId}", "user123")
 			.retrieve()
@@ -62,8 +62,9 @@ class CartControllerIntegrationTest {
 		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
 		JsonNode body = response.getBody();
 		assertThat(body).isNotNull();
+		// The cart is not stored until an item is added
 		assertThat(body.has("id")).isTrue();
-		assertThat(body.get("id").asText()).isNotEmpty();
+		assertThat(body.get("id").isNull()).isTrue();
 		assertThat(body.has("userId")).isTrue();
 		assertThat(body.get("userId").asText()).isEqualTo("user123");
 		assertThat(body.has("items")).isTrue();
@@ -72,9 +73,7 @@ class CartControllerIntegrationTest {
 		assertThat(body.has("totalAmount")).isTrue();
 		assertThat(body.get("totalAmount").asDouble()).isEqualTo(0.0);
 		assertThat(body.has("createdAt")).isTrue();
-		assertThat(body.get("createdAt").asText()).isNotEmpty();
-		assertThat(body.has("updatedAt")).isTrue();
-		assertThat(body.get("updatedAt").asText()).isNotEmpty();
+		assertThat(body.get("createdAt").isNull()).isTrue();
 	}
 
 	@Test
@@ -338,4 +337,48 @@ class CartControllerIntegrationTest {
 		assertThat(body.get("message").asText()).isEqualTo("Cart deleted successfully");
 	}
 
+	@Test
+	@Order(7)
+	void updateItemOfAnotherUser() {
+		for (String userId : new String[] { "owner", "other" }) {
+			this.restClient.post()
+				.uri("/api/v1/carts/items?userId={userId}", userId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.body("""
+						{"productId": "product-001", "productName": "iPhone 15", "price": 999.99, "quantity": 1}
+						""")
+				.retrieve()
+				.toBodilessEntity();
+		}
+		String itemId = Objects
+			.requireNonNull(
+					this.restClient.get().uri("/api/v1/carts?userId={userId}", "owner").retrieve().body(JsonNode.class))
+			.get("items")
+			.get(0)
+			.get("id")
+			.asText();
+		ResponseEntity<JsonNode> response = this.restClient.patch()
+			.uri("/api/v1/carts/items/{itemId}?userId={userId}", itemId, "other")
+			.contentType(MediaType.APPLICATION_JSON)
+			.body("""
+					{"quantity": 3}
+					""")
+			.retrieve()
+			.toEntity(JsonNode.class);
+		assertThat(response.getStatusCode().isError()).isTrue();
+		response = this.restClient.delete()
+			.uri("/api/v1/carts/items/{itemId}?userId={userId}", itemId, "other")
+			.retrieve()
+			.toEntity(JsonNode.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody().get("items").size()).isEqualTo(1);
+
+		// The item of the owner is untouched
+		JsonNode cart = this.restClient.get()
+			.uri("/api/v1/carts?userId={userId}", "owner")
+			.retrieve()
+			.body(JsonNode.class);
+		assertThat(cart.get("items").get(0).get("quantity").asInt()).isEqualTo(1);
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart.web;
+
+import com.example.TestcontainersConfiguration;
+import com.example.cart.CartService;
+import com.example.jdbc.SqlStatsResponseAdvice;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.web.client.RestClient;
+
+import static com.example.cart.web.CartMergeIntegrationTest.quantities;
+import static com.example.cart.web.CartSqlBudgetIntegrationTest.assertBudget;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql",
+				"--sql-stats.debug-headers=true", "--cart.storage=document", "--chunked-mutation.chunk-size=2" })
+class CartDocumentStorageIntegrationTest {
+
+	RestClient restClient;
+
+	@Autowired
+	JdbcClient jdbcClient;
+
+	@BeforeEach
+	void setUp(@LocalServerPort int port, @Autowired RestClient.Builder restClientBuilder) {
+		this.restClient = restClientBuilder.baseUrl("http://localhost:" + port)
+			.defaultStatusHandler(__ -> true, (req, res) -> {
+			})
+			.build();
+	}
+
+	@Test
+	void itemsAreStoredAsDocument() {
+		String userId = "user-" + UUID.randomUUID();
+		addItem(userId, "product-1", 2);
+		JsonNode cart = addItem(userId, "product-2", 1).getBody();
+		UUID cartId = UUID.fromString(cart.get("id").asText());
+		assertThat(quantities(cart)).containsExactlyInAnyOrderEntriesOf(Map.of("product-1", 2, "product-2", 1));
+		assertThat(itemRows(cartId)).isZero();
+		assertThat(document(cartId)).contains("product-1", "product-2");
+
+		// Item ids are kept in the document
+		String itemId = cart.get("items").get(0).get("id").asText();
+		ResponseEntity<JsonNode> response = this.restClient.patch()
+			.uri("/api/v1/carts/items/{itemId}?userId={userId}", itemId, userId)
+			.body(Map.of("quantity", 5))
+			.retrieve()
+			.toEntity(JsonNode.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(quantities(getCart(userId)))
+			.containsExactlyInAnyOrderEntriesOf(Map.of("product-1", 5, "product-2", 1));
+
+		response = this.restClient.delete()
+			.uri("/api/v1/carts/items/{itemId}?userId={userId}", itemId, userId)
+			.retrieve()
+			.toEntity(JsonNode.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(quantities(getCart(userId))).containsExactlyInAnyOrderEntriesOf(Map.of("product-2", 1));
+	}
+
+	@Test
+	void addItemWritesOneRow() {
+		String userId = "user-" + UUID.randomUUID();
+		addItem(userId, "product-1", 1);
+		ResponseEntity<JsonNode> response = addItem(userId, "product-2", 1);
+		// SELECT cart, UPDATE cart, COMMIT
+		assertBudget(response.getHeaders(), 2, 3);
+		assertThat(
+				CartSqlBudgetIntegrationTest.header(response.getHeaders(), SqlStatsResponseAdvice.ROWS_WRITTEN_HEADER))
+			.isEqualTo(1);
+	}
+
+	@Test
+	void relationalCartMovesToDocumentOnWrite() {
+		String userId = "user-" + UUID.randomUUID();
+		UUID cartId = UUID.randomUUID();
+		OffsetDateTime now = OffsetDateTime.now();
+		this.jdbcClient.sql("INSERT INTO carts (id, user_id, created_at, updated_at) VALUES (?, ?, ?, ?)")
+			.params(cartId, userId, now, now)
+			.update();
+		this.jdbcClient.sql("""
+				INSERT INTO cart_items (cart_id, product_id, product_name, price, quantity, created_at, updated_at)
+				VALUES (?, ?, ?, ?, ?, ?, ?)
+				""").params(cartId, "product-1", "Product product-1", BigDecimal.TEN, 3, now, now).update();
+
+		// Rows are read as they are
+		assertThat(quantities(getCart(userId))).containsExactlyInAnyOrderEntriesOf(Map.of("product-1", 3));
+		assertThat(document(cartId)).isNull();
+
+		addItem(userId, "product-2", 1);
+		assertThat(itemRows(cartId)).isZero();
+		assertThat(document(cartId)).contains("product-1", "product-2");
+		assertThat(quantities(getCart(userId)))
+			.containsExactlyInAnyOrderEntriesOf(Map.of("product-1", 3, "product-2", 1));
+	}
+
+	@Test
+	void largeRelationalCartKeepsItsRows() {
+		String userId = "user-" + UUID.randomUUID();
+		UUID cartId = UUID.randomUUID();
+		OffsetDateTime now = OffsetDateTime.now();
+		this.jdbcClient.sql("INSERT INTO carts (id, user_id, created_at, updated_at) VALUES (?, ?, ?, ?)")
+			.params(cartId, userId, now, now)
+			.update();
+		for (int i = 1; i <= 3; i++) {
+			this.jdbcClient.sql("""
+					INSERT INTO cart_items (cart_id, product_id, product_name, price, quantity, created_at, updated_at)
+					VALUES (?, ?, ?, ?, ?, ?, ?)
+					""").params(cartId, "product-" + i, "Product product-" + i, BigDecimal.TEN, 1, now, now).update();
+		}
+
+		// More rows than a chunk, so they are not moved to a document
+		addItem(userId, "product-4", 1);
+		assertThat(itemRows(cartId)).isEqualTo(4);
+		assertThat(document(cartId)).isNull();
+		assertThat(quantities(getCart(userId)))
+			.containsExactlyInAnyOrderEntriesOf(Map.of("product-1", 1, "product-2", 1, "product-3", 1, "product-4", 1));
+	}
+
+	ResponseEntity<JsonNode> addItem(String userId, String productId, int quantity) {
+		ResponseEntity<JsonNode> response = this.restClient.post()
+			.uri("/api/v1/carts/items?userId={userId}", userId)
+			.body(new CartService.AddToCartRequest(productId, "Product " + productId, BigDecimal.TEN, quantity))
+			.retrieve()
+			.toEntity(JsonNode.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		return response;
+	}
+
+	JsonNode getCart(String userId) {
+		return this.restClient.get()
+			.uri("/api/v1/carts?userId={userId}", userId)
+			.retrieve()
+			.toEntity(JsonNode.class)
+			.getBody();
+	}
+
+	int itemRows(UUID cartId) {
+		return this.jdbcClient.sql("SELECT COUNT(*) FROM cart_items WHERE cart_id = ?")
+			.param(cartId)
+			.query(Integer.class)
+			.single();
+	}
+
+	String document(UUID cartId) {
+		return this.jdbcClient.sql("SELECT items FROM carts WHERE id = ?")
+			.param(cartId)
+			.query(String.class)
+			.optional()
+			.orElse(null);
+	}
+
+}
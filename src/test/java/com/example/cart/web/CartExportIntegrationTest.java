@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart.web;
+
+import com.example.TestcontainersConfiguration;
+import com.example.cart.CartService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql",
+				"--cart.export.page-size=2", "--cart.export.fetch-size=3" })
+class CartExportIntegrationTest {
+
+	RestClient restClient;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@BeforeEach
+	void setUp(@LocalServerPort int port, @Autowired RestClient.Builder restClientBuilder) {
+		// The JDK client leaves gzip responses compressed
+		this.restClient = restClientBuilder.baseUrl("http://localhost:" + port)
+			.requestFactory(new JdkClientHttpRequestFactory())
+			.build();
+	}
+
+	@Test
+	void exportCarts() throws IOException {
+		String prefix = "export-" + UUID.randomUUID() + "-";
+		for (int i = 0; i < 5; i++) {
+			for (int j = 0; j < i; j++) {
+				this.restClient.post()
+					.uri("/api/v1/carts/items?userId={userId}", prefix + i)
+					.body(new CartService.AddToCartRequest("product-" + j, "Product " + j, BigDecimal.TEN, 1))
+					.retrieve()
+					.toBodilessEntity();
+			}
+		}
+		// A cart without items
+		this.restClient.post()
+			.uri("/api/v1/carts/items?userId={userId}", prefix + 0)
+			.body(new CartService.AddToCartRequest("product-0", "Product 0", BigDecimal.TEN, 1))
+			.retrieve()
+			.toBodilessEntity();
+		this.restClient.delete().uri("/api/v1/carts/items?userId={userId}", prefix + 0).retrieve().toBodilessEntity();
+
+		ResponseEntity<byte[]> response = this.restClient.get()
+			.uri("/api/v1/admin/carts/export")
+			.retrieve()
+			.toEntity(byte[].class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+		assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+		List<JsonNode> carts = parse(new ByteArrayInputStream(response.getBody()));
+		assertExported(carts, prefix);
+	}
+
+	@Test
+	void exportCartsCompressed() throws IOException {
+		String prefix = "export-" + UUID.randomUUID() + "-";
+		this.restClient.post()
+			.uri("/api/v1/carts/items?userId={userId}", prefix + 1)
+			.body(new CartService.AddToCartRequest("product-0", "Product 0", BigDecimal.TEN, 1))
+			.retrieve()
+			.toBodilessEntity();
+
+		ResponseEntity<byte[]> response = this.restClient.get()
+			.uri("/api/v1/admin/carts/export")
+			.header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+			.retrieve()
+			.toEntity(byte[].class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		List<JsonNode> carts = parse(new GZIPInputStream(new ByteArrayInputStream(response.getBody())));
+		assertThat(carts).filteredOn(cart -> cart.get("userId").asText().equals(prefix + 1))
+			.singleElement()
+			.satisfies(cart -> assertThat(cart.get("items").size()).isEqualTo(1));
+	}
+
+	void assertExported(List<JsonNode> carts, String prefix) {
+		List<JsonNode> exported = carts.stream()
+			.filter(cart -> cart.get("userId").asText().startsWith(prefix))
+			.toList();
+		assertThat(exported).hasSize(5);
+		for (JsonNode cart : exported) {
+			int i = Integer.parseInt(cart.get("userId").asText().substring(prefix.length()));
+			assertThat(cart.get("items").size()).isEqualTo(i);
+		}
+		// Every cart once, across page boundaries
+		List<String> ids = carts.stream().map(cart -> cart.get("id").asText()).toList();
+		assertThat(ids).doesNotHaveDuplicates();
+	}
+
+	List<JsonNode> parse(InputStream in) throws IOException {
+		List<JsonNode> carts = new ArrayList<>();
+		try (in) {
+			String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+			assertThat(body).endsWith("\n");
+			for (String line : body.split("\n")) {
+				carts.add(this.objectMapper.readTree(line));
+			}
+		}
+		return carts;
+	}
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart.web;
+
+import com.example.TestcontainersConfiguration;
+import com.example.cart.CartService;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.web.client.RestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql" })
+class CartMergeIntegrationTest {
+
+	RestClient restClient;
+
+	@Autowired
+	JdbcClient jdbcClient;
+
+	@BeforeEach
+	void setUp(@LocalServerPort int port, @Autowired RestClient.Builder restClientBuilder) {
+		this.restClient = restClientBuilder.baseUrl("http://localhost:" + port)
+			.defaultStatusHandler(__ -> true, (req, res) -> {
+			})
+			.build();
+	}
+
+	@Test
+	void mergeGuestCart() {
+		String guest = "guest-" + UUID.randomUUID();
+		String user = "user-" + UUID.randomUUID();
+		addItem(guest, "product-1", 2);
+		addItem(guest, "product-2", 1);
+		addItem(user, "product-1", 3);
+		addItem(user, "product-3", 1);
+		ResponseEntity<JsonNode> response = merge(guest, user);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(quantities(response.getBody()))
+			.containsExactlyInAnyOrderEntriesOf(Map.of("product-1", 5, "product-2", 1, "product-3", 1));
+		assertThat(quantities(getCart(user)))
+			.containsExactlyInAnyOrderEntriesOf(Map.of("product-1", 5, "product-2", 1, "product-3", 1));
+
+		// The guest cart is gone
+		JsonNode guestCart = getCart(guest);
+		assertThat(guestCart.get("id").isNull()).isTrue();
+		assertThat(guestCart.get("items").size()).isZero();
+	}
+
+	@Test
+	void mergeIntoNewCart() {
+		String guest = "guest-" + UUID.randomUUID();
+		String user = "user-" + UUID.randomUUID();
+		addItem(guest, "product-1", 2);
+
+		ResponseEntity<JsonNode> response = merge(guest, user);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody().get("userId").asText()).isEqualTo(user);
+		assertThat(quantities(response.getBody())).containsExactlyInAnyOrderEntriesOf(Map.of("product-1", 2));
+	}
+
+	@Test
+	void mergeWithoutGuestCart() {
+		String user = "user-" + UUID.randomUUID();
+		addItem(user, "product-1", 1);
+
+		ResponseEntity<JsonNode> response = merge("guest-" + UUID.randomUUID(), user);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(quantities(response.getBody())).containsExactlyInAnyOrderEntriesOf(Map.of("product-1", 1));
+	}
+
+	@Test
+	void mergeIntoDocumentCart() {
+		String guest = "guest-" + UUID.randomUUID();
+		String user = "user-" + UUID.randomUUID();
+		addItem(guest, "product-1", 2);
+		// A cart written with cart.storage=document
+		UUID cartId = UUID.randomUUID();
+		OffsetDateTime now = OffsetDateTime.now();
+		this.jdbcClient.sql("INSERT INTO carts (id, user_id, created_at, updated_at, items) VALUES (?, ?, ?, ?, ?)")
+			.params(cartId, user, now, now, """
+					[{"id":"%s","productId":"product-1","productName":"Product product-1","price":10.00,"quantity":3,
+					"createdAt":"%s","updatedAt":"%s"}]""".formatted(UUID.randomUUID(), now, now))
+			.update();
+
+		ResponseEntity<JsonNode> response = merge(guest, user);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(quantities(response.getBody())).containsExactlyInAnyOrderEntriesOf(Map.of("product-1", 5));
+		// The items are moved back to cart_items
+		assertThat(this.jdbcClient.sql("SELECT items FROM carts WHERE id = ?")
+			.param(cartId)
+			.query(String.class)
+			.optional()).isEmpty();
+		assertThat(this.jdbcClient.sql("SELECT quantity FROM cart_items WHERE cart_id = ?")
+			.param(cartId)
+			.query(Integer.class)
+			.list()).containsExactly(5);
+	}
+
+	// More items than a merge may write within its transaction
+	@Test
+	void mergeLargeGuestCart() {
+		String guest = "guest-" + UUID.randomUUID();
+		String user = "user-" + UUID.randomUUID();
+		addItem(guest, "product-0", 1);
+		this.jdbcClient.sql("""
+				INSERT INTO cart_items (cart_id, product_id, product_name, price, quantity)
+				SELECT id, 'product-' || n, 'Product', 10, 1
+				FROM carts, generate_series(1, 500) n
+				WHERE user_id = ?
+				""").param(guest).update();
+
+		ResponseEntity<JsonNode> response = merge(guest, user);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(getCart(guest).get("items").size()).isEqualTo(501);
+		assertThat(getCart(user).get("id").isNull()).isTrue();
+	}
+
+	@Test
+	void mergeIntoItself() {
+		String user = "user-" + UUID.randomUUID();
+		assertThat(merge(user, user).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	ResponseEntity<JsonNode> merge(String sourceUserId, String targetUserId) {
+		return this.restClient.post()
+			.uri("/api/v1/carts/merge?sourceUserId={sourceUserId}&targetUserId={targetUserId}", sourceUserId,
+					targetUserId)
+			.retrieve()
+			.toEntity(JsonNode.class);
+	}
+
+	void addItem(String userId, String productId, int quantity) {
+		ResponseEntity<JsonNode> response = this.restClient.post()
+			.uri("/api/v1/carts/items?userId={userId}", userId)
+			.body(new CartService.AddToCartRequest(productId, "Product " + productId, BigDecimal.TEN, quantity))
+			.retrieve()
+			.toEntity(JsonNode.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+	}
+
+	JsonNode getCart(String userId) {
+		return this.restClient.get()
+			.uri("/api/v1/carts?userId={userId}", userId)
+			.retrieve()
+			.toEntity(JsonNode.class)
+			.getBody();
+	}
+
+	static Map<String, Integer> quantities(JsonNode cart) {
+		Map<String, Integer> quantities = new HashMap<>();
+		cart.get("items").forEach(item -> quantities.put(item.get("productId").asText(), item.get("quantity").asInt()));
+		return quantities;
+	}
+
+}
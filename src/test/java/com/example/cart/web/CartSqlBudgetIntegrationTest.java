@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart.web;
+
+import com.example.TestcontainersConfiguration;
+import com.example.jdbc.SqlStatsResponseAdvice;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Fails when an endpoint starts to run more SQL than its budget
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql",
+				"--sql-stats.debug-headers=true" })
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class CartSqlBudgetIntegrationTest {
+
+	RestClient restClient;
+
+	@BeforeEach
+	void setUp(@LocalServerPort int port, @Autowired RestClient.Builder restClientBuilder) {
+		this.restClient = restClientBuilder.baseUrl("http://localhost:" + port)
+			.defaultStatusHandler(__ -> true, (req, res) -> {
+			})
+			.build();
+	}
+
+	@Test
+	@Order(1)
+	void getMissingCart() {
+		ResponseEntity<JsonNode> response = this.restClient.get()
+			.uri("/api/v1/carts?userId={userId}", "budget-user")
+			.retrieve()
+			.toEntity(JsonNode.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		// SELECT cart, COMMIT, nothing is written until an item is added
+		assertBudget(response.getHeaders(), 1, 2);
+		assertThat(header(response.getHeaders(), SqlStatsResponseAdvice.ROWS_WRITTEN_HEADER)).isZero();
+	}
+
+	@Test
+	@Order(2)
+	void addItem() {
+		ResponseEntity<JsonNode> response = this.restClient.post()
+			.uri("/api/v1/carts/items?userId={userId}", "budget-user")
+			.contentType(MediaType.APPLICATION_JSON)
+			.body("""
+					{
+					    "productId": "product-001",
+					    "productName": "iPhone 15",
+					    "price": 999.99,
+					    "quantity": 1
+					}
+					""")
+			.retrieve()
+			.toEntity(JsonNode.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		// SELECT cart, INSERT cart, SELECT COUNT, SELECT items, INSERT item, UPDATE
+		// cart, COMMIT
+		assertBudget(response.getHeaders(), 6, 7);
+		assertThat(header(response.getHeaders(), SqlStatsResponseAdvice.ROWS_WRITTEN_HEADER)).isEqualTo(3);
+	}
+
+	@Test
+	@Order(3)
+	void getCart() {
+		ResponseEntity<JsonNode> response = this.restClient.get()
+			.uri("/api/v1/carts?userId={userId}", "budget-user")
+			.retrieve()
+			.toEntity(JsonNode.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		// SELECT cart, SELECT items, COMMIT, in a single transaction as reads are not
+		// hedged
+		assertBudget(response.getHeaders(), 2, 3);
+		assertThat(header(response.getHeaders(), SqlStatsResponseAdvice.ROWS_READ_HEADER)).isEqualTo(2);
+		assertThat(header(response.getHeaders(), SqlStatsResponseAdvice.ROWS_WRITTEN_HEADER)).isZero();
+	}
+
+	@Test
+	@Order(4)
+	void mergeCarts() {
+		for (int i = 0; i < 3; i++) {
+			this.restClient.post()
+				.uri("/api/v1/carts/items?userId={userId}", "budget-guest")
+				.contentType(MediaType.APPLICATION_JSON)
+				.body("""
+						{
+						    "productId": "product-%d",
+						    "productName": "Product",
+						    "price": 9.99,
+						    "quantity": 1
+						}
+						""".formatted(i))
+				.retrieve()
+				.toBodilessEntity();
+		}
+		ResponseEntity<JsonNode> response = this.restClient.post()
+			.uri("/api/v1/carts/merge?sourceUserId={sourceUserId}&targetUserId={targetUserId}", "budget-guest",
+					"budget-user")
+			.retrieve()
+			.toEntity(JsonNode.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		// SELECT target, SELECT items, SELECT source, SELECT items, INSERT ... SELECT,
+		// UPDATE target, DELETE source items, DELETE source, SELECT target, SELECT
+		// items, COMMIT regardless of how many items the guest cart holds
+		assertBudget(response.getHeaders(), 10, 11);
+	}
+
+	@Test
+	@Order(5)
+	void updateItemQuantity() {
+		String itemId = firstItemId("budget-user");
+		ResponseEntity<JsonNode> response = this.restClient.patch()
+			.uri("/api/v1/carts/items/{itemId}?userId={userId}", itemId, "budget-user")
+			.contentType(MediaType.APPLICATION_JSON)
+			.body("""
+					{
+					    "quantity": 3
+					}
+					""")
+			.retrieve()
+			.toEntity(JsonNode.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		// UPDATE item, UPDATE cart, SELECT items, COMMIT without loading the cart first
+		assertBudget(response.getHeaders(), 3, 4);
+		assertThat(header(response.getHeaders(), SqlStatsResponseAdvice.ROWS_WRITTEN_HEADER)).isEqualTo(2);
+	}
+
+	@Test
+	@Order(6)
+	void removeItem() {
+		String itemId = firstItemId("budget-user");
+		ResponseEntity<JsonNode> response = this.restClient.delete()
+			.uri("/api/v1/carts/items/{itemId}?userId={userId}", itemId, "budget-user")
+			.retrieve()
+			.toEntity(JsonNode.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		// DELETE item, UPDATE cart, SELECT items, COMMIT
+		assertBudget(response.getHeaders(), 3, 4);
+	}
+
+	String firstItemId(String userId) {
+		return this.restClient.get()
+			.uri("/api/v1/carts?userId={userId}", userId)
+			.retrieve()
+			.toEntity(JsonNode.class)
+			.getBody()
+			.get("items")
+			.get(0)
+			.get("id")
+			.asText();
+	}
+
+	static void assertBudget(HttpHeaders headers, int statements, int roundTrips) {
+		assertThat(header(headers, SqlStatsResponseAdvice.STATEMENTS_HEADER)).isLessThanOrEqualTo(statements);
+		assertThat(header(headers, SqlStatsResponseAdvice.ROUND_TRIPS_HEADER)).isLessThanOrEqualTo(roundTrips);
+	}
+
+	static long header(HttpHeaders headers, String name) {
+		String value = headers.getFirst(name);
+		assertThat(value).as(name).isNotNull();
+		return Long.parseLong(value);
+	}
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.cart.web;
+
+import com.example.TestcontainersConfiguration;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "--spring.profiles.active=testcontainers,r2dbc", "--spring.sql.init.platform=postgresql" })
+class ReactiveCartControllerIntegrationTest {
+
+	@Autowired
+	WebTestClient webTestClient;
+
+	@Test
+	void cartLifecycle() {
+		this.webTestClient.get()
+			.uri("/api/v1/carts?userId={userId}", "reactive-user")
+			.exchange()
+			.expectStatus()
+			.isOk()
+			.expectHeader()
+			.contentType(MediaType.APPLICATION_JSON)
+			.expectBody()
+			.jsonPath("$.id")
+			.isEmpty()
+			.jsonPath("$.items.length()")
+			.isEqualTo(0);
+
+		JsonNode cart = this.webTestClient.post()
+			.uri("/api/v1/carts/items?userId={userId}", "reactive-user")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue("""
+					{
+					    "productId": "product-001",
+					    "productName": "iPhone 15",
+					    "price": 999.99,
+					    "quantity": 1
+					}
+					""")
+			.exchange()
+			.expectStatus()
+			.isOk()
+			.expectBody(JsonNode.class)
+			.returnResult()
+			.getResponseBody();
+		assertThat(cart).isNotNull();
+		assertThat(cart.get("items").size()).isEqualTo(1);
+		String itemId = cart.get("items").get(0).get("id").asText();
+
+		this.webTestClient.patch()
+			.uri("/api/v1/carts/items/{itemId}?userId={userId}", itemId, "reactive-user")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue("""
+					{"quantity": 3}
+					""")
+			.exchange()
+			.expectStatus()
+			.isOk()
+			.expectBody()
+			.jsonPath("$.items[0].quantity")
+			.isEqualTo(3)
+			.jsonPath("$.totalAmount")
+			.isEqualTo(2999.97);
+
+		this.webTestClient.delete()
+			.uri("/api/v1/carts/items/{itemId}?userId={userId}", itemId, "reactive-user")
+			.exchange()
+			.expectStatus()
+			.isOk()
+			.expectBody()
+			.jsonPath("$.items.length()")
+			.isEqualTo(0);
+
+		this.webTestClient.delete()
+			.uri("/api/v1/carts?userId={userId}", "reactive-user")
+			.exchange()
+			.expectStatus()
+			.isOk()
+			.expectBody()
+			.jsonPath("$.message")
+			.isEqualTo("Cart deleted successfully");
+	}
+
+	@Test
+	void mergeCarts() {
+		for (String userId : new String[] { "reactive-guest", "reactive-member" }) {
+			this.webTestClient.post()
+				.uri("/api/v1/carts/items?userId={userId}", userId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("""
+						{
+						    "productId": "product-merge",
+						    "productName": "Merge",
+						    "price": 1.00,
+						    "quantity": 2
+						}
+						""")
+				.exchange()
+				.expectStatus()
+				.isOk();
+		}
+
+		this.webTestClient.post()
+			.uri("/api/v1/carts/merge?sourceUserId={sourceUserId}&targetUserId={targetUserId}", "reactive-guest",
+					"reactive-member")
+			.exchange()
+			.expectStatus()
+			.isOk()
+			.expectBody()
+			.jsonPath("$.items.length()")
+			.isEqualTo(1)
+			.jsonPath("$.items[0].quantity")
+			.isEqualTo(4);
+
+		this.webTestClient.get()
+			.uri("/api/v1/carts?userId={userId}", "reactive-guest")
+			.exchange()
+			.expectStatus()
+			.isOk()
+			.expectBody()
+			.jsonPath("$.items.length()")
+			.isEqualTo(0);
+
+		this.webTestClient.post()
+			.uri("/api/v1/carts/merge?sourceUserId={sourceUserId}&targetUserId={targetUserId}", "reactive-member",
+					"reactive-member")
+			.exchange()
+			.expectStatus()
+			.isBadRequest();
+	}
+
+	@Test
+	void cartInCbor() throws Exception {
+		this.webTestClient.post()
+			.uri("/api/v1/carts/items?userId={userId}", "reactive-cbor-user")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue("""
+					{
+					    "productId": "product-001",
+					    "productName": "iPhone 15",
+					    "price": 999.99,
+					    "quantity": 1
+					}
+					""")
+			.exchange()
+			.expectStatus()
+			.isOk();
+
+		byte[] body = this.webTestClient.get()
+			.uri("/api/v1/carts?userId={userId}", "reactive-cbor-user")
+			.accept(MediaType.parseMediaType("application/cbor"))
+			.exchange()
+			.expectStatus()
+			.isOk()
+			.expectHeader()
+			.contentType("application/cbor")
+			.expectBody(byte[].class)
+			.returnResult()
+			.getResponseBody();
+
+		JsonNode cart = new CBORMapper().readTree(body);
+		assertThat(cart.get("userId").asText()).isEqualTo("reactive-cbor-user");
+		assertThat(cart.get("createdAt").isNumber()).isTrue();
+	}
+
+}
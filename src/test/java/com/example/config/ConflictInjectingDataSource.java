@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+public class ConflictInjectingDataSource extends DelegatingDataSource {
+
+	static final String CONFLICT_STATE = "40001";
+
+	static final String CONFLICT_MESSAGE = "ERROR: change conflicts with another transaction, please retry: (OC000)";
+
+	private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+			"executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+	private final double commitFailureRate;
+
+	private final boolean writeConflicts;
+
+	private final Duration latency;
+
+	public ConflictInjectingDataSource(DataSource targetDataSource, double commitFailureRate, boolean writeConflicts,
+			Duration latency) {
+		super(targetDataSource);
+		this.commitFailureRate = commitFailureRate;
+		this.writeConflicts = writeConflicts;
+		this.latency = latency;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return wrap(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return wrap(super.getConnection(username, password));
+	}
+
+	private Connection wrap(Connection connection) throws SQLException {
+		if (this.writeConflicts) {
+			connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+		}
+		return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+				new ConnectionHandler(connection));
+	}
+
+	private void roundTrip() {
+		if (this.latency.isZero()) {
+			return;
+		}
+		try {
+			Thread.sleep(this.latency);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+	}
+
+	private static boolean isWrite(String sql) {
+		String statement = sql.stripLeading().toLowerCase(Locale.ROOT);
+		return statement.startsWith("insert") || statement.startsWith("update") || statement.startsWith("delete");
+	}
+
+	private class ConnectionHandler implements InvocationHandler {
+
+		private final Connection connection;
+
+		private boolean dirty;
+
+		ConnectionHandler(Connection connection) {
+			this.connection = connection;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "commit" -> {
+					roundTrip();
+					boolean wrote = this.dirty;
+					this.dirty = false;
+					if (wrote && ThreadLocalRandom.current().nextDouble() < commitFailureRate) {
+						this.connection.rollback();
+						throw new SQLException(CONFLICT_MESSAGE, CONFLICT_STATE);
+					}
+				}
+				case "rollback" -> {
+					roundTrip();
+					this.dirty = false;
+				}
+				case "prepareStatement" -> {
+					PreparedStatement statement = (PreparedStatement) ConflictInjectingDataSource
+						.invoke(this.connection, method, args);
+					return Proxy.newProxyInstance(getClass().getClassLoader(),
+							new Class<?>[] { PreparedStatement.class },
+							new StatementHandler(this, statement, (String) args[0]));
+				}
+				case "createStatement" -> {
+					Statement statement = (Statement) ConflictInjectingDataSource.invoke(this.connection, method, args);
+					return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Statement.class },
+							new StatementHandler(this, statement, null));
+				}
+				default -> {
+				}
+			}
+			return ConflictInjectingDataSource.invoke(this.connection, method, args);
+		}
+
+	}
+
+	private class StatementHandler implements InvocationHandler {
+
+		private final ConnectionHandler connection;
+
+		private final Statement statement;
+
+		private final String sql;
+
+		StatementHandler(ConnectionHandler connection, Statement statement, String sql) {
+			this.connection = connection;
+			this.statement = statement;
+			this.sql = sql;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (EXECUTE_METHODS.contains(method.getName())) {
+				roundTrip();
+				String sql = (args != null && args.length > 0 && args[0] instanceof String s) ? s : this.sql;
+				if (sql != null && isWrite(sql)) {
+					this.connection.dirty = true;
+				}
+			}
+			return ConflictInjectingDataSource.invoke(this.statement, method, args);
+		}
+
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.config;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+
+@TestConfiguration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "conflict-injection.enabled", havingValue = "true")
+@EnableConfigurationProperties(ConflictInjectionConfiguration.ConflictInjectionProperties.class)
+public class ConflictInjectionConfiguration {
+
+	@Bean
+	static BeanPostProcessor conflictInjectingDataSourcePostProcessor(
+			ObjectProvider<ConflictInjectionProperties> properties) {
+		DsqlDataSourceConfig.DsqlSQLExceptionTranslator exceptionTranslator = new DsqlDataSourceConfig.DsqlSQLExceptionTranslator();
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource && !(bean instanceof ConflictInjectingDataSource)) {
+					ConflictInjectionProperties props = properties.getObject();
+					return new ConflictInjectingDataSource(dataSource, props.commitFailureRate(),
+							props.writeConflicts(), props.latency());
+				}
+				if (bean instanceof JdbcTemplate jdbcTemplate) {
+					// Write conflicts surface at statement execution on PostgreSQL
+					jdbcTemplate.setExceptionTranslator(exceptionTranslator);
+				}
+				return bean;
+			}
+		};
+	}
+
+	@Bean
+	JdbcTransactionManager transactionManager(DataSource dataSource) {
+		JdbcTransactionManager transactionManager = new JdbcTransactionManager(dataSource);
+		transactionManager.setExceptionTranslator(new DsqlDataSourceConfig.DsqlSQLExceptionTranslator());
+		return transactionManager;
+	}
+
+	@ConfigurationProperties("conflict-injection")
+	public record ConflictInjectionProperties(@DefaultValue("0.0") double commitFailureRate,
+			@DefaultValue("false") boolean writeConflicts, @DefaultValue("0ms") Duration latency) {
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.idempotency;
+
+import com.example.TestcontainersConfiguration;
+import com.example.cart.CartService;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql" })
+class IdempotencyFilterIntegrationTest {
+
+	RestClient restClient;
+
+	String userId = "idempotency-" + UUID.randomUUID();
+
+	@BeforeEach
+	void setUp(@LocalServerPort int port, @Autowired RestClient.Builder restClientBuilder) {
+		this.restClient = restClientBuilder.baseUrl("http://localhost:" + port)
+			.defaultStatusHandler(__ -> true, (req, res) -> {
+			})
+			.build();
+	}
+
+	@Test
+	void repeatedRequestIsReplayed() {
+		String key = UUID.randomUUID().toString();
+		CartService.AddToCartRequest request = new CartService.AddToCartRequest("product-1", "Product 1",
+				BigDecimal.TEN, 1);
+
+		ResponseEntity<JsonNode> first = addToCart(key, request);
+		ResponseEntity<JsonNode> second = addToCart(key, request);
+
+		assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(first.getHeaders().containsKey(IdempotencyFilter.IDEMPOTENT_REPLAYED)).isFalse();
+		assertThat(second.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(second.getHeaders().getFirst(IdempotencyFilter.IDEMPOTENT_REPLAYED)).isEqualTo("true");
+		assertThat(second.getBody()).isEqualTo(first.getBody());
+		JsonNode cart = this.restClient.get()
+			.uri("/api/v1/carts?userId={userId}", this.userId)
+			.retrieve()
+			.body(JsonNode.class);
+		assertThat(cart.get("items").size()).isOne();
+		assertThat(cart.get("items").get(0).get("quantity").asInt()).isOne();
+	}
+
+	@Test
+	void keyReusedForDifferentRequestIsRejected() {
+		String key = UUID.randomUUID().toString();
+		addToCart(key, new CartService.AddToCartRequest("product-1", "Product 1", BigDecimal.TEN, 1));
+
+		ResponseEntity<JsonNode> response = addToCart(key,
+				new CartService.AddToCartRequest("product-1", "Product 1", BigDecimal.TEN, 2));
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+	}
+
+	@Test
+	void failedRequestIsNotReplayed() {
+		String key = UUID.randomUUID().toString();
+		CartService.AddToCartRequest invalid = new CartService.AddToCartRequest("product-1", "Product 1",
+				BigDecimal.TEN, 0);
+
+		assertThat(addToCart(key, invalid).getStatusCode().is5xxServerError()).isTrue();
+		ResponseEntity<JsonNode> retry = addToCart(key, invalid);
+
+		assertThat(retry.getStatusCode().is5xxServerError()).isTrue();
+		assertThat(retry.getHeaders().containsKey(IdempotencyFilter.IDEMPOTENT_REPLAYED)).isFalse();
+	}
+
+	@Test
+	void requestWithoutKeyIsApplied() {
+		CartService.AddToCartRequest request = new CartService.AddToCartRequest("product-1", "Product 1",
+				BigDecimal.TEN, 1);
+
+		addToCart(null, request);
+		ResponseEntity<JsonNode> response = addToCart(null, request);
+
+		assertThat(response.getBody().get("items").get(0).get("quantity").asInt()).isEqualTo(2);
+	}
+
+	ResponseEntity<JsonNode> addToCart(String key, CartService.AddToCartRequest request) {
+		return this.restClient.post().uri("/api/v1/carts/items?userId={userId}", this.userId).headers(headers -> {
+			if (key != null) {
+				headers.set(IdempotencyFilter.IDEMPOTENCY_KEY, key);
+			}
+		}).body(request).retrieve().toEntity(JsonNode.class);
+	}
+
+}
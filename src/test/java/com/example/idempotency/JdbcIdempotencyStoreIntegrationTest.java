@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.idempotency;
+
+import com.example.TestcontainersConfiguration;
+import com.example.idempotency.IdempotencyStore.Status;
+import com.example.idempotency.IdempotencyStore.StoredResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql",
+		"--idempotency.store=jdbc" })
+class JdbcIdempotencyStoreIntegrationTest {
+
+	@Autowired
+	IdempotencyStore store;
+
+	@Autowired
+	JdbcClient jdbcClient;
+
+	String key = UUID.randomUUID().toString();
+
+	@Test
+	void claimAndReplay() {
+		assertThat(this.store).isInstanceOf(JdbcIdempotencyStore.class);
+		assertThat(this.store.claim(this.key, "a").status()).isEqualTo(Status.CLAIMED);
+		assertThat(this.store.claim(this.key, "a").status()).isEqualTo(Status.IN_PROGRESS);
+		assertThat(this.store.claim(this.key, "b").status()).isEqualTo(Status.MISMATCH);
+
+		this.store.complete(this.key,
+				new StoredResponse(200, "application/json", "{}".getBytes(StandardCharsets.UTF_8)));
+
+		IdempotencyStore.Claim claim = this.store.claim(this.key, "a");
+		assertThat(claim.status()).isEqualTo(Status.COMPLETED);
+		assertThat(claim.response().status()).isEqualTo(200);
+		assertThat(claim.response().contentType()).isEqualTo("application/json");
+		assertThat(new String(claim.response().body(), StandardCharsets.UTF_8)).isEqualTo("{}");
+	}
+
+	@Test
+	void replayBinaryBody() {
+		byte[] body = { (byte) 0xa1, 0x00, (byte) 0xff, (byte) 0xc3, 0x28 };
+		assertThat(this.store.claim(this.key, "a").status()).isEqualTo(Status.CLAIMED);
+
+		this.store.complete(this.key, new StoredResponse(200, "application/cbor", body));
+
+		assertThat(this.store.claim(this.key, "a").response().body()).isEqualTo(body);
+	}
+
+	@Test
+	void releasedKeyCanBeClaimedAgain() {
+		assertThat(this.store.claim(this.key, "a").status()).isEqualTo(Status.CLAIMED);
+
+		this.store.release(this.key);
+
+		assertThat(this.store.claim(this.key, "a").status()).isEqualTo(Status.CLAIMED);
+	}
+
+	@Test
+	void abandonedClaimIsTakenOver() {
+		assertThat(this.store.claim(this.key, "a").status()).isEqualTo(Status.CLAIMED);
+		this.jdbcClient.sql("UPDATE idempotency_keys SET created_at = ? WHERE idempotency_key = ?")
+			.param(OffsetDateTime.now().minusHours(1))
+			.param(this.key)
+			.update();
+
+		assertThat(this.store.claim(this.key, "b").status()).isEqualTo(Status.CLAIMED);
+	}
+
+	@Test
+	void expiredKeysArePurged() {
+		assertThat(this.store.claim(this.key, "a").status()).isEqualTo(Status.CLAIMED);
+		this.jdbcClient.sql("UPDATE idempotency_keys SET expires_at = ? WHERE idempotency_key = ?")
+			.param(OffsetDateTime.now().minusMinutes(1))
+			.param(this.key)
+			.update();
+
+		((JdbcIdempotencyStore) this.store).purge();
+
+		assertThat(this.jdbcClient.sql("SELECT COUNT(*) FROM idempotency_keys WHERE idempotency_key = ?")
+			.param(this.key)
+			.query(Long.class)
+			.single()).isZero();
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import com.example.TestcontainersConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql",
+		"--hedged-reads.enabled=true", "--hedged-reads.max-delay=100ms", "--hedged-reads.min-samples=1000",
+		"--hedged-reads.max-rate=1" })
+class HedgedReadsIntegrationTest {
+
+	@Autowired
+	HedgedReads hedgedReads;
+
+	@Autowired
+	JdbcClient jdbcClient;
+
+	@Autowired
+	TransactionTemplate transactionTemplate;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Test
+	void slowReadIsAnsweredByHedge() {
+		AtomicInteger attempts = new AtomicInteger();
+		long start = System.nanoTime();
+
+		int result = this.hedgedReads.read("slowRead", () -> query(attempts.getAndIncrement() == 0 ? 3 : 0));
+
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+		assertThat(result).isEqualTo(0);
+		assertThat(attempts).hasValue(2);
+		assertThat(count("slowRead", "hedge_won")).isOne();
+	}
+
+	@Test
+	void fastReadIsNotHedged() {
+		AtomicInteger attempts = new AtomicInteger();
+
+		int result = this.hedgedReads.read("fastRead", () -> query(attempts.getAndIncrement()));
+
+		assertThat(result).isEqualTo(0);
+		assertThat(attempts).hasValue(1);
+		assertThat(count("fastRead", "primary")).isOne();
+	}
+
+	@Test
+	void readWithinTransactionIsNotHedged() {
+		AtomicInteger attempts = new AtomicInteger();
+
+		Integer result = this.transactionTemplate.execute(
+				status -> this.hedgedReads.read("transactionalRead", () -> query(attempts.getAndIncrement() + 0.3)));
+
+		assertThat(result).isEqualTo(1);
+		assertThat(attempts).hasValue(1);
+		assertThat(this.meterRegistry.find("hedged.reads").tag("operation", "transactionalRead").counter()).isNull();
+	}
+
+	// Sleeps for the given seconds and returns them rounded up
+	int query(double seconds) {
+		return this.jdbcClient.sql("SELECT CEIL(?)::int FROM pg_sleep(?)")
+			.param(seconds)
+			.param(seconds)
+			.query(Integer.class)
+			.single();
+	}
+
+	double count(String operation, String outcome) {
+		return this.meterRegistry.get("hedged.reads")
+			.tag("operation", operation)
+			.tag("outcome", outcome)
+			.counter()
+			.count();
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import com.example.TestcontainersConfiguration;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Samples by hand, the scheduled sampling does not run within the test
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql",
+		"--spring.datasource.hikari.maximum-pool-size=2", "--spring.datasource.hikari.connection-timeout=10000",
+		"--pool-sizer.enabled=true", "--pool-sizer.interval=1h", "--pool-sizer.min-size=2", "--pool-sizer.max-size=6",
+		"--pool-sizer.shrink-after=2" })
+class PoolSizerIntegrationTest {
+
+	@Autowired
+	PoolSizer poolSizer;
+
+	@Autowired
+	DataSource dataSource;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Test
+	void growsWhileThreadsWaitAndShrinksWhenIdle() throws Exception {
+		HikariDataSource hikariDataSource = this.dataSource.unwrap(HikariDataSource.class);
+		assertThat(this.poolSizer.pools()).singleElement().satisfies(pool -> assertThat(pool.size()).isEqualTo(2));
+
+		AtomicInteger acquired = new AtomicInteger();
+		List<Thread> waiting = new ArrayList<>();
+		try (Connection first = this.dataSource.getConnection(); Connection second = this.dataSource.getConnection()) {
+			for (int i = 0; i < 3; i++) {
+				waiting.add(Thread.ofVirtual().start(() -> {
+					try (Connection connection = this.dataSource.getConnection()) {
+						acquired.incrementAndGet();
+					}
+					catch (Exception e) {
+						throw new IllegalStateException(e);
+					}
+				}));
+			}
+			while (hikariDataSource.getHikariPoolMXBean().getThreadsAwaitingConnection() < 3) {
+				Thread.sleep(10);
+			}
+
+			this.poolSizer.sample();
+
+			assertThat(hikariDataSource.getMaximumPoolSize()).isEqualTo(5);
+			for (Thread thread : waiting) {
+				thread.join();
+			}
+			assertThat(acquired).hasValue(3);
+		}
+		assertThat(resizes("grow")).isOne();
+
+		// The sample after a resize is skipped, then the pool shrinks one connection
+		// after every shrink-after idle samples
+		for (int i = 0; i < 2; i++) {
+			this.poolSizer.sample();
+			assertThat(hikariDataSource.getMaximumPoolSize()).isEqualTo(5);
+		}
+		this.poolSizer.sample();
+		assertThat(hikariDataSource.getMaximumPoolSize()).isEqualTo(4);
+		for (int i = 0; i < 10; i++) {
+			this.poolSizer.sample();
+		}
+		assertThat(hikariDataSource.getMaximumPoolSize()).isEqualTo(2);
+		assertThat(resizes("shrink")).isEqualTo(3);
+		assertThat(this.meterRegistry.get("pool.sizer.size").gauge().value()).isEqualTo(2);
+	}
+
+	double resizes(String direction) {
+		return this.meterRegistry.get("pool.sizer.resizes").tag("direction", direction).counter().count();
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import com.example.jdbc.PoolSizer.Sample;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PoolSizerTest {
+
+	PoolSizerProperties properties = new PoolSizerProperties(true, 2, 10, Duration.ofSeconds(5), Duration.ofMillis(10),
+			0.5, 3);
+
+	@Test
+	void growsByWaitingThreads() {
+		assertThat(PoolSizer.nextSize(4, new Sample(4, 3, Duration.ZERO), 0, this.properties)).isEqualTo(7);
+	}
+
+	@Test
+	void growsWhenAcquisitionIsSlow() {
+		assertThat(PoolSizer.nextSize(4, new Sample(4, 0, Duration.ofMillis(50)), 0, this.properties)).isEqualTo(5);
+	}
+
+	@Test
+	void growsUpToMaxSize() {
+		assertThat(PoolSizer.nextSize(8, new Sample(8, 20, Duration.ofSeconds(1)), 0, this.properties)).isEqualTo(10);
+	}
+
+	@Test
+	void shrinksOnlyAfterIdleSamples() {
+		Sample idle = new Sample(0, 0, Duration.ZERO);
+		assertThat(PoolSizer.nextSize(4, idle, 2, this.properties)).isEqualTo(4);
+		assertThat(PoolSizer.nextSize(4, idle, 3, this.properties)).isEqualTo(3);
+		assertThat(PoolSizer.nextSize(2, idle, 3, this.properties)).isEqualTo(2);
+	}
+
+	@Test
+	void waitingWinsOverIdleSamples() {
+		assertThat(PoolSizer.nextSize(4, new Sample(1, 1, Duration.ZERO), 5, this.properties)).isEqualTo(5);
+	}
+
+}
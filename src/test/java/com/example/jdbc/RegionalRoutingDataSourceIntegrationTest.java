@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import com.example.LatencyProxy;
+import com.example.TestcontainersConfiguration;
+import com.example.cart.Cart;
+import com.example.cart.CartService;
+import com.zaxxer.hikari.HikariDataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+// Both endpoints lead to the same database like peered clusters, the proxies add the
+// latency of remote regions. Probes are run by the test.
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql",
+		"--regional-endpoints.enabled=true", "--regional-endpoints.probe-interval=1h",
+		"--regional-endpoints.switch-margin=10ms" })
+class RegionalRoutingDataSourceIntegrationTest {
+
+	@Autowired
+	CartService cartService;
+
+	@Autowired
+	LatencyProxy firstEndpointProxy;
+
+	@Autowired
+	LatencyProxy secondEndpointProxy;
+
+	RegionalRoutingDataSource dataSource;
+
+	@BeforeEach
+	void setUp(@Autowired DataSource dataSource) throws SQLException {
+		this.dataSource = dataSource.unwrap(RegionalRoutingDataSource.class);
+	}
+
+	@AfterEach
+	void reset() {
+		for (LatencyProxy proxy : new LatencyProxy[] { this.firstEndpointProxy, this.secondEndpointProxy }) {
+			proxy.setLatency(Duration.ZERO);
+			proxy.setDown(false);
+		}
+		probe(5);
+	}
+
+	@Test
+	void routesToFastestEndpoint() {
+		this.firstEndpointProxy.setLatency(Duration.ofMillis(20));
+		probe(3);
+		assertThat(current()).isEqualTo(endpoint(this.secondEndpointProxy));
+
+		// A small difference does not move the traffic back and forth
+		this.firstEndpointProxy.setLatency(Duration.ZERO);
+		this.secondEndpointProxy.setLatency(Duration.ofMillis(2));
+		probe(5);
+		assertThat(current()).isEqualTo(endpoint(this.secondEndpointProxy));
+
+		this.secondEndpointProxy.setLatency(Duration.ofMillis(30));
+		probe(5);
+		assertThat(current()).isEqualTo(endpoint(this.firstEndpointProxy));
+	}
+
+	@Test
+	void failsOverWhenEndpointIsDown() {
+		String userId = "user-" + UUID.randomUUID();
+		addItem(userId, "product-1");
+		String down = current();
+		LatencyProxy proxy = down.equals(endpoint(this.firstEndpointProxy)) ? this.firstEndpointProxy
+				: this.secondEndpointProxy;
+
+		// The pooled connections are gone with the region
+		proxy.setDown(true);
+		this.dataSource.getEndpoints()
+			.stream()
+			.filter(endpoint -> endpoint.getName().equals(down))
+			.forEach(endpoint -> endpoint.getDataSource().getHikariPoolMXBean().softEvictConnections());
+
+		Cart cart = addItem(userId, "product-2");
+		assertThat(cart.getItems()).hasSize(2);
+		assertThat(current()).isNotEqualTo(down);
+
+		// Still unhealthy after a failed probe
+		probe(1);
+		assertThat(current()).isNotEqualTo(down);
+	}
+
+	@Test
+	void saturatedEndpointIsNotMarkedDown() throws SQLException {
+		String saturated = current();
+		HikariDataSource pool = this.dataSource.getCurrent().getDataSource();
+		List<Connection> connections = new ArrayList<>();
+		try {
+			for (int i = 0; i < pool.getMaximumPoolSize(); i++) {
+				connections.add(pool.getConnection());
+			}
+			assertThatExceptionOfType(SQLTransientConnectionException.class)
+				.isThrownBy(() -> this.dataSource.getConnection());
+			assertThat(current()).isEqualTo(saturated);
+			assertThat(this.dataSource.getCurrent().errorRate()).isZero();
+
+			// Probes do not wait for a connection of the pool
+			probe(1);
+			assertThat(current()).isEqualTo(saturated);
+			assertThat(this.dataSource.getCurrent().errorRate()).isZero();
+		}
+		finally {
+			for (Connection connection : connections) {
+				connection.close();
+			}
+		}
+	}
+
+	Cart addItem(String userId, String productId) {
+		return this.cartService.addToCart(userId,
+				new CartService.AddToCartRequest(productId, "Product " + productId, BigDecimal.TEN, 1));
+	}
+
+	void probe(int times) {
+		for (int i = 0; i < times; i++) {
+			this.dataSource.probe();
+		}
+	}
+
+	String current() {
+		return this.dataSource.getCurrent().getName();
+	}
+
+	static String endpoint(LatencyProxy proxy) {
+		return "region-" + proxy.getPort();
+	}
+
+}
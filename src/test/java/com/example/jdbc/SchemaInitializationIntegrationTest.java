@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import com.example.TestcontainersConfiguration;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.web.client.RestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql" })
+class SchemaInitializationIntegrationTest {
+
+	@Autowired
+	VersionedSchemaInitializer schemaInitializer;
+
+	@Autowired
+	SchemaIndexHealthIndicator schemaIndexHealthIndicator;
+
+	@Autowired
+	DataSource dataSource;
+
+	@Autowired
+	JdbcClient jdbcClient;
+
+	@Autowired
+	SimpleAsyncTaskScheduler taskScheduler;
+
+	@Test
+	void skipsAppliedVersion() {
+		assertThat(this.jdbcClient.sql("SELECT scripts FROM schema_versions").query(String.class).list())
+			.contains("schema-postgresql.sql");
+
+		this.jdbcClient.sql("DROP INDEX idx_carts_updated_at").update();
+		try {
+			this.schemaInitializer.initializeDatabase();
+			assertThat(indexExists("idx_carts_updated_at")).isFalse();
+
+			// Scripts whose version is not recorded run again
+			this.jdbcClient.sql("DELETE FROM schema_versions").update();
+			this.schemaInitializer.initializeDatabase();
+			assertThat(indexExists("idx_carts_updated_at")).isTrue();
+			assertThat(this.jdbcClient.sql("SELECT COUNT(*) FROM schema_versions").query(Long.class).single()).isOne();
+		}
+		finally {
+			this.jdbcClient.sql("CREATE INDEX IF NOT EXISTS idx_carts_updated_at ON carts(updated_at)").update();
+		}
+	}
+
+	@Test
+	void readyOnceRequiredIndexesAreValid(@LocalServerPort int port, @Autowired RestClient.Builder restClientBuilder) {
+		assertThat(this.schemaIndexHealthIndicator.check().getStatus()).isEqualTo(Status.UP);
+		ResponseEntity<String> readiness = restClientBuilder.baseUrl("http://localhost:" + port)
+			.build()
+			.get()
+			.uri("/readyz")
+			.retrieve()
+			.toEntity(String.class);
+		assertThat(readiness.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		SchemaIndexHealthIndicator indicator = new SchemaIndexHealthIndicator(List.of(this.dataSource),
+				new SchemaIndexProperties(List.of("idx_carts_user_id", "idx_test_pending"), Duration.ofHours(1)),
+				this.taskScheduler);
+		try {
+			assertThat(indicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+			assertThat(indicator.check().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+			assertThat(indicator.health().getDetails()).containsEntry("indexes",
+					Map.of("idx_carts_user_id", "valid", "idx_test_pending", "missing"));
+
+			this.jdbcClient.sql("CREATE INDEX idx_test_pending ON carts(created_at)").update();
+			assertThat(indicator.check().getStatus()).isEqualTo(Status.UP);
+		}
+		finally {
+			this.jdbcClient.sql("DROP INDEX IF EXISTS idx_test_pending").update();
+		}
+	}
+
+	boolean indexExists(String name) {
+		return this.jdbcClient.sql("SELECT COUNT(*) FROM pg_indexes WHERE indexname = ?")
+			.param(name)
+			.query(Long.class)
+			.single() > 0;
+	}
+
+}
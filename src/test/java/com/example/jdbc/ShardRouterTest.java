@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class ShardRouterTest {
+
+	@Test
+	void usersAreSpreadEvenly() {
+		ShardRouter shardRouter = shardRouter(4);
+		int[] users = new int[4];
+		IntStream.range(0, 40_000).forEach(i -> users[shardRouter.shardOf("user-" + i)]++);
+		assertThat(IntStream.of(users).min().getAsInt()).isGreaterThan(9_000);
+		assertThat(IntStream.of(users).max().getAsInt()).isLessThan(11_000);
+	}
+
+	@Test
+	void addedShardTakesUsersOnlyFromOtherShards() {
+		ShardRouter before = shardRouter(4);
+		ShardRouter after = shardRouter(5);
+		int moved = 0;
+		for (int i = 0; i < 40_000; i++) {
+			String userId = "user-" + i;
+			if (before.shardOf(userId) != after.shardOf(userId)) {
+				assertThat(after.shardOf(userId)).isEqualTo(4);
+				moved++;
+			}
+		}
+		assertThat(moved).isBetween(6_000, 10_000);
+	}
+
+	@Test
+	void cartIdsCarryTheirShard() {
+		ShardRouter shardRouter = shardRouter(3);
+		UUID cartId = shardRouter.newCartId(2);
+		assertThat(cartId.version()).isEqualTo(8);
+		assertThat(cartId.variant()).isEqualTo(2);
+		assertThat(shardRouter.shardOf(cartId)).isEqualTo(2);
+		assertThat(shardRouter.shardOf(UUID.randomUUID())).isZero();
+		assertThat(shardRouter(1).shardOf(cartId)).isZero();
+	}
+
+	@Test
+	void shardCannotChangeWithinAction() {
+		ShardRouter shardRouter = shardRouter(2);
+		assertThat(shardRouter.callOn(1, () -> shardRouter.callOn(1, shardRouter::currentShard))).isEqualTo(1);
+		assertThatIllegalStateException().isThrownBy(() -> shardRouter.runOn(0, () -> shardRouter.runOn(1, () -> {
+		})));
+		assertThat(shardRouter.currentShard()).isNull();
+	}
+
+	private static ShardRouter shardRouter(int shards) {
+		return new ShardRouter(new ShardingProperties(true,
+				Collections.nCopies(shards,
+						new ShardingProperties.Shard("jdbc:postgresql://localhost/postgres", "postgres", "postgres")),
+				512));
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import com.example.TestcontainersConfiguration;
+import com.example.cart.Cart;
+import com.example.cart.CartBatchReader;
+import com.example.cart.CartChange;
+import com.example.cart.CartChangeFeed;
+import com.example.cart.CartRepository;
+import com.example.cart.CartService;
+import com.example.cart.CrossShardMergeException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql",
+		"--sharding.enabled=true", "--cart.changes.settle-time=0s" })
+class ShardingIntegrationTest {
+
+	@Autowired
+	CartService cartService;
+
+	@Autowired
+	CartRepository cartRepository;
+
+	@Autowired
+	CartBatchReader cartBatchReader;
+
+	@Autowired
+	CartChangeFeed cartChangeFeed;
+
+	@Autowired
+	ShardRouter shardRouter;
+
+	@Autowired
+	JdbcClient jdbcClient;
+
+	@Autowired
+	TransactionTemplate transactionTemplate;
+
+	@Test
+	void cartsAreStoredOnTheShardOfTheirUser() {
+		List<String> userIds = userIds(20);
+		userIds.forEach(userId -> this.cartService.addToCart(userId,
+				new CartService.AddToCartRequest("product-001", "iPhone 15", new BigDecimal("999.99"), 1)));
+
+		for (int shard = 0; shard < this.shardRouter.shardCount(); shard++) {
+			int expectedShard = shard;
+			List<String> usersOnShard = this.shardRouter.callOn(shard,
+					() -> this.jdbcClient.sql("SELECT c.user_id FROM carts c JOIN cart_items i ON i.cart_id = c.id")
+						.query(String.class)
+						.list());
+			assertThat(userIds).filteredOn(usersOnShard::contains)
+				.isNotEmpty()
+				.allSatisfy(userId -> assertThat(this.shardRouter.shardOf(userId)).isEqualTo(expectedShard));
+		}
+	}
+
+	@Test
+	void cartIsFoundByIdOnItsShard() {
+		Map<Integer, List<String>> userIdsByShard = userIds(20).stream()
+			.collect(Collectors.groupingBy(this.shardRouter::shardOf));
+		assertThat(userIdsByShard).containsOnlyKeys(0, 1);
+
+		userIdsByShard.forEach((shard, userIds) -> {
+			Cart cart = this.cartService.getOrCreateCart(userIds.get(0));
+			assertThat(this.shardRouter.shardOf(cart.getId())).isEqualTo(shard);
+			assertThat(this.cartService.getCartById(cart.getId()).getUserId()).isEqualTo(userIds.get(0));
+		});
+	}
+
+	@Test
+	void cartsOnDifferentShardsAreNotMerged() {
+		Map<Integer, List<String>> userIdsByShard = userIds(20).stream()
+			.collect(Collectors.groupingBy(this.shardRouter::shardOf));
+
+		assertThatThrownBy(
+				() -> this.cartService.mergeCarts(userIdsByShard.get(0).get(0), userIdsByShard.get(1).get(0)))
+			.isInstanceOf(CrossShardMergeException.class);
+	}
+
+	@Test
+	void changesAreMergedAcrossShards() {
+		List<String> userIds = userIds(10);
+		userIds.forEach(this.cartService::getOrCreateCart);
+
+		List<CartChange> changes = this.cartChangeFeed.changesSince(null, 1000).changes();
+
+		assertThat(changes).extracting(CartChange::userId).containsAll(userIds);
+		assertThat(changes).extracting(change -> this.shardRouter.shardOf(change.cartId())).contains(0, 1);
+		assertThat(changes)
+			.isSortedAccordingTo((a, b) -> a.updatedAt().toInstant().compareTo(b.updatedAt().toInstant()));
+	}
+
+	@Test
+	void batchReadsSpanShards() {
+		List<String> userIds = userIds(10);
+		List<UUID> cartIds = userIds.stream()
+			.map(userId -> this.cartService
+				.addToCart(userId,
+						new CartService.AddToCartRequest("product-001", "iPhone 15", new BigDecimal("999.99"), 1))
+				.getId())
+			.toList();
+
+		assertThat(this.cartBatchReader.read(cartIds, List.of())).extracting(Cart::getId)
+			.containsExactlyElementsOf(cartIds);
+		assertThat(this.cartBatchReader.read(List.of(), userIds)).extracting(Cart::getUserId)
+			.containsExactlyElementsOf(userIds)
+			.allSatisfy(userId -> assertThat(this.cartService.getCart(userId).getItems()).hasSize(1));
+	}
+
+	@Test
+	void transactionCannotSpanShards() {
+		Map<Integer, List<String>> userIdsByShard = userIds(20).stream()
+			.collect(Collectors.groupingBy(this.shardRouter::shardOf));
+
+		assertThatIllegalStateException().isThrownBy(() -> this.transactionTemplate.executeWithoutResult(status -> {
+			this.cartRepository.findByUserId(userIdsByShard.get(0).get(0));
+			this.cartRepository.findByUserId(userIdsByShard.get(1).get(0));
+		}));
+		assertThat(this.shardRouter.currentShard()).isNull();
+	}
+
+	private static List<String> userIds(int count) {
+		String prefix = "sharded-" + UUID.randomUUID() + "-";
+		return IntStream.range(0, count).mapToObj(i -> prefix + i).toList();
+	}
+
+}
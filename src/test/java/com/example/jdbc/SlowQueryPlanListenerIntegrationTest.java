@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jdbc;
+
+import com.example.TestcontainersConfiguration;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.time.Duration;
+import java.util.Objects;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.web.client.RestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql",
+				"--slow-query-plans.threshold=100ms", "--slow-query-plans.sample-rate=1" })
+class SlowQueryPlanListenerIntegrationTest {
+
+	RestClient restClient;
+
+	@Autowired
+	JdbcClient jdbcClient;
+
+	@BeforeEach
+	void setUp(@LocalServerPort int port, @Autowired RestClient.Builder restClientBuilder) {
+		this.restClient = restClientBuilder.baseUrl("http://localhost:" + port).build();
+	}
+
+	@Test
+	void slowQueryIsExplained() {
+		String sql = "SELECT (SELECT COUNT(*) FROM carts WHERE user_id = ?) FROM pg_sleep(0.2)";
+		this.jdbcClient.sql(sql).param("slow-user").query(Long.class).single();
+		this.jdbcClient.sql("SELECT id FROM carts WHERE user_id = ?").param("fast-user").query(String.class).list();
+
+		JsonNode plan = await().atMost(Duration.ofSeconds(10)).until(() -> slowQuery(sql), Objects::nonNull);
+		assertThat(plan.get("parameterTypes")).hasSize(1);
+		assertThat(plan.get("parameterTypes").get(0).asText()).isEqualTo("String");
+		assertThat(plan.get("elapsedMillis").asLong()).isGreaterThanOrEqualTo(200);
+		assertThat(plan.get("plan").asText()).contains("carts");
+		assertThat(this.restClient.get().uri("/actuator/slowqueries").retrieve().body(JsonNode.class))
+			.noneMatch(slowQuery -> slowQuery.get("sql").asText().equals("SELECT id FROM carts WHERE user_id = ?"));
+	}
+
+	JsonNode slowQuery(String sql) {
+		for (JsonNode slowQuery : this.restClient.get().uri("/actuator/slowqueries").retrieve().body(JsonNode.class)) {
+			if (slowQuery.get("sql").asText().equals(sql)) {
+				return slowQuery;
+			}
+		}
+		return null;
+	}
+
+}
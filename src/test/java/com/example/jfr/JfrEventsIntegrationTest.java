@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.jfr;
+
+import com.example.TestcontainersConfiguration;
+import com.example.cart.CartService;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = { "--spring.profiles.active=testcontainers", "--spring.sql.init.platform=postgresql" })
+class JfrEventsIntegrationTest {
+
+	@Autowired
+	CartService cartService;
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void recordsEventsEnabledByProfile() throws Exception {
+		String userId = "user-" + UUID.randomUUID();
+		List<RecordedEvent> events;
+		try (Recording recording = new Recording(Configuration.create(Path.of("src/main/jfr/demo-dsql.jfc")))) {
+			recording.start();
+			this.cartService.addToCart(userId,
+					new CartService.AddToCartRequest("product-1", "Product 1", BigDecimal.TEN, 1));
+			recording.stop();
+			Path file = this.tempDir.resolve("events.jfr");
+			recording.dump(file);
+			events = RecordingFile.readAllEvents(file);
+		}
+
+		assertThat(events).filteredOn(event -> event.getEventType().getName().equals("com.example.CartOperation"))
+			.singleElement()
+			.satisfies(event -> assertThat(event.getString("operation")).isEqualTo("addToCart"));
+		assertThat(events).filteredOn(event -> event.getEventType().getName().equals("com.example.SqlStatement"))
+			.extracting(event -> event.getString("sql"))
+			.anySatisfy(sql -> assertThat(sql).contains("INSERT INTO cart_items"));
+		assertThat(events).filteredOn(event -> event.getEventType().getName().equals("com.example.ConnectionAcquire"))
+			.isNotEmpty();
+	}
+
+	@Test
+	void disabledWithoutProfile() {
+		assertThat(new CartOperationEvent().isEnabled()).isFalse();
+		assertThat(new SqlStatementEvent().isEnabled()).isFalse();
+	}
+
+}
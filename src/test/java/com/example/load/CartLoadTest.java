@@ -0,0 +1,467 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.load;
+
+import com.example.TestcontainersConfiguration;
+import com.example.config.ConflictInjectionConfiguration;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.stream.LongStream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ActiveProfilesResolver;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.StringUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import({ TestcontainersConfiguration.class, ConflictInjectionConfiguration.class })
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "--spring.sql.init.platform=postgresql")
+@ActiveProfiles(resolver = CartLoadTest.ModeProfilesResolver.class)
+@EnabledIfSystemProperty(named = "load-test.enabled", matches = "true")
+class CartLoadTest {
+
+	// jdbc (blocking JdbcClient on virtual threads) or r2dbc (WebFlux on R2DBC)
+	static final String MODE = System.getProperty("load-test.mode", "jdbc");
+
+	static final Duration DURATION = Duration.parse(System.getProperty("load-test.duration", "PT30S"));
+
+	static final Duration WARMUP = Duration.parse(System.getProperty("load-test.warmup", "PT5S"));
+
+	static final int CLIENTS = Integer.getInteger("load-test.clients", 200);
+
+	static final Path OUTPUT = Path.of(System.getProperty("load-test.output", "target/load-test"));
+
+	static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	JdbcClient jdbcClient;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Autowired
+	ApplicationContext applicationContext;
+
+	final HttpClient httpClient = HttpClient.newBuilder()
+		.version(HttpClient.Version.HTTP_1_1)
+		.executor(Executors.newVirtualThreadPerTaskExecutor())
+		.build();
+
+	@DynamicPropertySource
+	static void appProperties(DynamicPropertyRegistry registry) {
+		// e.g.
+		// -Dload-test.app-properties=cart.storage=document,spring.datasource.hikari.maximum-pool-size=16
+		String appProperties = System.getProperty("load-test.app-properties", "");
+		for (String property : StringUtils.commaDelimitedListToStringArray(appProperties)) {
+			String[] keyValue = property.split("=", 2);
+			registry.add(keyValue[0].trim(), () -> keyValue[1].trim());
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(Scenario.class)
+	void run(Scenario scenario) throws Exception {
+		String runId = UUID.randomUUID().toString().substring(0, 8);
+		scenario.prepare(this.jdbcClient, runId);
+		// Warm up the JIT and the connection pool without recording
+		drive(scenario, runId, WARMUP, new LoadRecorder());
+		LoadRecorder recorder = new LoadRecorder();
+		long retriesBefore = retries();
+		long start = System.nanoTime();
+		try (ConnectionSampler connections = new ConnectionSampler(activeConnections())) {
+			drive(scenario, runId, DURATION, recorder);
+			Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+			long retries = retries() - retriesBefore;
+			Map<String, Object> report = recorder.report(scenario, elapsed, retries);
+			Map<String, Object> connectionReport = connections.report();
+			connectionReport.put("poolSize", poolSize());
+			report.put("connections", connectionReport);
+			double meanConnections = (double) connectionReport.get("mean");
+			report.put("throughputPerConnection",
+					meanConnections == 0 ? 0 : (double) report.get("throughputPerSecond") / meanConnections);
+			Files.createDirectories(OUTPUT);
+			// Keep the file names of the default mode stable for comparisons across
+			// builds
+			String name = scenario.name().toLowerCase() + (MODE.equals("jdbc") ? "" : "-" + MODE);
+			objectMapper.writeValue(OUTPUT.resolve(name + ".json").toFile(), report);
+		}
+		assertThat(recorder.total()).isPositive();
+	}
+
+	// Failed attempts of retryable operations, recorded by both modes
+	long retries() {
+		return (long) this.meterRegistry.find("retry.errors").counters().stream().mapToDouble(Counter::count).sum();
+	}
+
+	int poolSize() throws Exception {
+		if (MODE.equals("r2dbc")) {
+			return this.applicationContext.getBean(ConnectionPool.class)
+				.getMetrics()
+				.orElseThrow()
+				.getMaxAllocatedSize();
+		}
+		return this.applicationContext.getBean(DataSource.class).unwrap(HikariDataSource.class).getMaximumPoolSize();
+	}
+
+	IntSupplier activeConnections() throws Exception {
+		if (MODE.equals("r2dbc")) {
+			PoolMetrics metrics = this.applicationContext.getBean(ConnectionPool.class).getMetrics().orElseThrow();
+			return metrics::acquiredSize;
+		}
+		HikariDataSource dataSource = this.applicationContext.getBean(DataSource.class).unwrap(HikariDataSource.class);
+		return () -> dataSource.getHikariPoolMXBean().getActiveConnections();
+	}
+
+	void drive(Scenario scenario, String runId, Duration duration, LoadRecorder recorder) throws InterruptedException {
+		long deadline = System.nanoTime() + duration.toNanos();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < CLIENTS; i++) {
+				int client = i;
+				executor.submit(() -> {
+					LoadClient loadClient = new LoadClient(this.httpClient, "http://localhost:" + this.port);
+					while (System.nanoTime() < deadline) {
+						Operation operation = scenario.next(runId, client);
+						long begin = System.nanoTime();
+						int status;
+						try {
+							status = operation.execute(loadClient);
+						}
+						catch (IOException e) {
+							status = -1;
+						}
+						catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return;
+						}
+						recorder.record(operation.name(), System.nanoTime() - begin, status);
+					}
+				});
+			}
+		}
+	}
+
+	enum Scenario {
+
+		// Every client reads and writes the same few carts to provoke conflicts
+		HOT_KEY {
+			@Override
+			Operation next(String runId, int client) {
+				String userId = "hot-" + runId + "-" + ThreadLocalRandom.current().nextInt(4);
+				return mixed(userId, 10, 50, 30);
+			}
+		},
+
+		// Reads and writes against carts that already contain many items
+		LARGE_CARTS {
+			static final int USERS = 20;
+
+			static final int ITEMS = Integer.getInteger("load-test.large-cart-items", 500);
+
+			@Override
+			void prepare(JdbcClient jdbcClient, String runId) {
+				for (int i = 0; i < USERS; i++) {
+					UUID cartId = jdbcClient.sql("INSERT INTO carts (user_id) VALUES (?) RETURNING id")
+						.param("large-" + runId + "-" + i)
+						.query(UUID.class)
+						.single();
+					jdbcClient.sql("""
+							INSERT INTO cart_items (cart_id, product_id, product_name, price, quantity)
+							SELECT ?, 'product-' || g, 'Product ' || g, 9.99, 1 FROM generate_series(1, ?) g
+							""").param(cartId).param(ITEMS).update();
+				}
+			}
+
+			@Override
+			Operation next(String runId, int client) {
+				String userId = "large-" + runId + "-" + ThreadLocalRandom.current().nextInt(USERS);
+				return mixed(userId, ITEMS, 70, 20);
+			}
+		},
+
+		// Each request targets one of many users, so conflicts are rare
+		MANY_USERS {
+			@Override
+			Operation next(String runId, int client) {
+				String userId = "user-" + runId + "-" + ThreadLocalRandom.current().nextInt(100_000);
+				return mixed(userId, 20, 60, 30);
+			}
+		};
+
+		void prepare(JdbcClient jdbcClient, String runId) {
+		}
+
+		abstract Operation next(String runId, int client);
+
+		static Operation mixed(String userId, int products, int readPercent, int addPercent) {
+			int dice = ThreadLocalRandom.current().nextInt(100);
+			String productId = "product-" + (1 + ThreadLocalRandom.current().nextInt(products));
+			if (dice < readPercent) {
+				return new Operation("get_cart", client -> client.getCart(userId));
+			}
+			if (dice < readPercent + addPercent) {
+				return new Operation("add_item", client -> client.addItem(userId, productId));
+			}
+			return new Operation("update_quantity", client -> client.updateFirstItemQuantity(userId));
+		}
+
+	}
+
+	record Operation(String name, Request request) {
+
+		int execute(LoadClient client) throws IOException, InterruptedException {
+			return this.request.send(client);
+		}
+
+	}
+
+	interface Request {
+
+		int send(LoadClient client) throws IOException, InterruptedException;
+
+	}
+
+	static class LoadClient {
+
+		final HttpClient httpClient;
+
+		final String baseUrl;
+
+		LoadClient(HttpClient httpClient, String baseUrl) {
+			this.httpClient = httpClient;
+			this.baseUrl = baseUrl;
+		}
+
+		int getCart(String userId) throws IOException, InterruptedException {
+			return send(HttpRequest.newBuilder(uri("/api/v1/carts?userId=" + userId)).GET()).statusCode();
+		}
+
+		int addItem(String userId, String productId) throws IOException, InterruptedException {
+			String body = """
+					{"productId": "%s", "productName": "Product %s", "price": 9.99, "quantity": 1}
+					""".formatted(productId, productId);
+			return send(HttpRequest.newBuilder(uri("/api/v1/carts/items?userId=" + userId))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body))).statusCode();
+		}
+
+		int updateFirstItemQuantity(String userId) throws IOException, InterruptedException {
+			HttpResponse<String> cart = send(HttpRequest.newBuilder(uri("/api/v1/carts?userId=" + userId)).GET());
+			JsonNode items = objectMapper.readTree(cart.body()).path("items");
+			if (items.isEmpty()) {
+				return addItem(userId, "product-1");
+			}
+			String itemId = items.get(0).get("id").asText();
+			String body = """
+					{"quantity": %d}
+					""".formatted(1 + ThreadLocalRandom.current().nextInt(5));
+			return send(HttpRequest.newBuilder(uri("/api/v1/carts/items/" + itemId + "?userId=" + userId))
+				.header("Content-Type", "application/json")
+				.method("PATCH", HttpRequest.BodyPublishers.ofString(body))).statusCode();
+		}
+
+		HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+			return this.httpClient.send(request.timeout(Duration.ofSeconds(30)).build(),
+					HttpResponse.BodyHandlers.ofString());
+		}
+
+		URI uri(String path) {
+			return URI.create(this.baseUrl + path);
+		}
+
+	}
+
+	static class LoadRecorder {
+
+		// Fixed bucket boundaries keep histograms comparable across builds
+		static final Duration[] BUCKETS = LongStream
+			.of(1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000)
+			.mapToObj(Duration::ofMillis)
+			.toArray(Duration[]::new);
+
+		final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+		final AtomicLong total = new AtomicLong();
+
+		void record(String operation, long nanos, int status) {
+			this.total.incrementAndGet();
+			Timer.builder("load.request")
+				.tag("operation", operation)
+				.publishPercentiles(0.5, 0.9, 0.99, 0.999)
+				.serviceLevelObjectives(BUCKETS)
+				.distributionStatisticExpiry(Duration.ofDays(1))
+				.distributionStatisticBufferLength(1)
+				.register(this.registry)
+				.record(Duration.ofNanos(nanos));
+			String outcome = status >= 200 && status < 300 ? "success" : "error";
+			Counter.builder("load.response")
+				.tag("operation", operation)
+				.tag("outcome", outcome)
+				.register(this.registry)
+				.increment();
+		}
+
+		long total() {
+			return this.total.get();
+		}
+
+		Map<String, Object> report(Scenario scenario, Duration elapsed, long retries) {
+			Map<String, Object> operations = new LinkedHashMap<>();
+			long errors = 0;
+			for (Timer timer : this.registry.find("load.request").timers()) {
+				String operation = timer.getId().getTag("operation");
+				long operationErrors = (long) this.registry.find("load.response")
+					.tags("operation", operation, "outcome", "error")
+					.counters()
+					.stream()
+					.mapToDouble(Counter::count)
+					.sum();
+				errors += operationErrors;
+				operations.put(operation, operationReport(timer, operationErrors));
+			}
+			Map<String, Object> report = new LinkedHashMap<>();
+			report.put("scenario", scenario.name().toLowerCase());
+			report.put("mode", MODE);
+			report.put("clients", CLIENTS);
+			report.put("durationSeconds", elapsed.toMillis() / 1000.0);
+			report.put("requests", total());
+			report.put("throughputPerSecond", total() * 1000.0 / Math.max(1, elapsed.toMillis()));
+			report.put("errors", errors);
+			report.put("errorRate", total() == 0 ? 0 : (double) errors / total());
+			report.put("retries", retries);
+			report.put("operations", operations);
+			return report;
+		}
+
+		static Map<String, Object> operationReport(Timer timer, long errors) {
+			HistogramSnapshot snapshot = timer.takeSnapshot();
+			Map<String, Object> latency = new LinkedHashMap<>();
+			latency.put("mean", snapshot.mean(TimeUnit.MILLISECONDS));
+			for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+				latency.put("p" + BigDecimal.valueOf(percentile.percentile())
+					.movePointRight(2)
+					.stripTrailingZeros()
+					.toPlainString(), percentile.value(TimeUnit.MILLISECONDS));
+			}
+			latency.put("max", snapshot.max(TimeUnit.MILLISECONDS));
+			// Cumulative counts of requests at or below each bucket boundary
+			List<Bucket> histogram = new ArrayList<>();
+			for (CountAtBucket bucket : snapshot.histogramCounts()) {
+				histogram.add(new Bucket(bucket.bucket(TimeUnit.MILLISECONDS), (long) bucket.count()));
+			}
+			Map<String, Object> report = new LinkedHashMap<>();
+			report.put("requests", snapshot.count());
+			report.put("errors", errors);
+			report.put("latencyMillis", latency);
+			report.put("histogramMillis", histogram);
+			return report;
+		}
+
+	}
+
+	record Bucket(double le, long count) {
+	}
+
+	// Samples the connections in use while the load is driven
+	static class ConnectionSampler implements AutoCloseable {
+
+		final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+		final AtomicLong samples = new AtomicLong();
+
+		final AtomicLong sum = new AtomicLong();
+
+		final AtomicLong max = new AtomicLong();
+
+		ConnectionSampler(IntSupplier activeConnections) {
+			this.executor.scheduleAtFixedRate(() -> {
+				int active = activeConnections.getAsInt();
+				this.samples.incrementAndGet();
+				this.sum.addAndGet(active);
+				this.max.accumulateAndGet(active, Math::max);
+			}, 0, 100, TimeUnit.MILLISECONDS);
+		}
+
+		Map<String, Object> report() {
+			Map<String, Object> report = new LinkedHashMap<>();
+			report.put("max", this.max.get());
+			report.put("mean", this.samples.get() == 0 ? 0.0 : (double) this.sum.get() / this.samples.get());
+			return report;
+		}
+
+		@Override
+		public void close() {
+			this.executor.shutdownNow();
+		}
+
+	}
+
+	static class ModeProfilesResolver implements ActiveProfilesResolver {
+
+		@Override
+		public String[] resolve(Class<?> testClass) {
+			return MODE.equals("jdbc") ? new String[] { "testcontainers" } : new String[] { "testcontainers", MODE };
+		}
+
+	}
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.retry;
+
+import com.example.jfr.RetryAttemptEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringJUnitConfig
+class RetryLoggingListenerTest {
+
+	@Autowired
+	FlakyService flakyService;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Test
+	void firstTrySuccess() {
+		this.flakyService.succeedAfter(0);
+		assertThat(this.meterRegistry.get("retry.operation")
+			.tags("operation", "RetryLoggingListenerTest.FlakyService.succeedAfter", "outcome", "first_try_success")
+			.timer()
+			.count()).isEqualTo(1);
+		assertThat(this.meterRegistry.find("retry.backoff").tags("outcome", "first_try_success").timer()).isNull();
+	}
+
+	@Test
+	void successAfterRetry() {
+		this.flakyService.succeedAfter(2);
+		assertThat(this.meterRegistry.get("retry.attempts")
+			.tags("operation", "RetryLoggingListenerTest.FlakyService.succeedAfter", "outcome", "success_after_retry")
+			.summary()
+			.max()).isEqualTo(3);
+		assertThat(this.meterRegistry.get("retry.errors")
+			.tags("operation", "RetryLoggingListenerTest.FlakyService.succeedAfter", "exception",
+					"OptimisticLockingFailureException")
+			.counter()
+			.count()).isEqualTo(2);
+		assertThat(this.meterRegistry.get("retry.backoff")
+			.tags("operation", "RetryLoggingListenerTest.FlakyService.succeedAfter", "outcome", "success_after_retry")
+			.timer()
+			.totalTime(java.util.concurrent.TimeUnit.MILLISECONDS)).isEqualTo(2);
+	}
+
+	@Test
+	void exhausted() {
+		assertThatThrownBy(() -> this.flakyService.succeedAfter(10))
+			.isInstanceOf(OptimisticLockingFailureException.class);
+		assertThat(this.meterRegistry.get("retry.attempts")
+			.tags("operation", "RetryLoggingListenerTest.FlakyService.succeedAfter", "outcome", "exhausted")
+			.summary()
+			.max()).isEqualTo(3);
+	}
+
+	@Test
+	void failure() {
+		assertThatThrownBy(() -> this.flakyService.fail()).isInstanceOf(IllegalArgumentException.class);
+		assertThat(this.meterRegistry.get("retry.attempts")
+			.tags("operation", "RetryLoggingListenerTest.FlakyService.fail", "outcome", "failure")
+			.summary()
+			.max()).isEqualTo(1);
+	}
+
+	@Test
+	void failureAfterRetry() {
+		assertThatThrownBy(() -> this.flakyService.failAfterConflict()).isInstanceOf(IllegalArgumentException.class);
+		assertThat(this.meterRegistry.get("retry.attempts")
+			.tags("operation", "RetryLoggingListenerTest.FlakyService.failAfterConflict", "outcome", "failure")
+			.summary()
+			.max()).isEqualTo(2);
+		assertThat(this.meterRegistry.find("retry.attempts")
+			.tags("operation", "RetryLoggingListenerTest.FlakyService.failAfterConflict", "outcome", "exhausted")
+			.summary()).isNull();
+	}
+
+	@Test
+	void recordsAttempts(@TempDir Path tempDir) throws Exception {
+		List<RecordedEvent> events;
+		try (Recording recording = new Recording()) {
+			recording.enable(RetryAttemptEvent.class);
+			recording.start();
+			this.flakyService.succeedAfter(2);
+			recording.stop();
+			Path file = tempDir.resolve("retry.jfr");
+			recording.dump(file);
+			events = RecordingFile.readAllEvents(file);
+		}
+		assertThat(events).extracting(event -> event.getInt("attempt"), event -> event.getString("exception"))
+			.containsExactly(tuple(1, OptimisticLockingFailureException.class.getName()),
+					tuple(2, OptimisticLockingFailureException.class.getName()), tuple(3, null));
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@EnableRetry
+	@Import({ RetryLoggingListener.class, BackoffRecordingSleeper.class })
+	static class Config {
+
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		FlakyService flakyService() {
+			return new FlakyService();
+		}
+
+	}
+
+	@Retryable(retryFor = OptimisticLockingFailureException.class, maxAttempts = 3, backoff = @Backoff(delay = 1))
+	static class FlakyService {
+
+		final AtomicInteger attempts = new AtomicInteger();
+
+		final AtomicInteger conflicts = new AtomicInteger();
+
+		void succeedAfter(int failures) {
+			if (this.attempts.incrementAndGet() <= failures) {
+				throw new OptimisticLockingFailureException("conflict");
+			}
+			this.attempts.set(0);
+		}
+
+		void fail() {
+			throw new IllegalArgumentException("invalid");
+		}
+
+		void failAfterConflict() {
+			if (this.conflicts.incrementAndGet() == 1) {
+				throw new OptimisticLockingFailureException("conflict");
+			}
+			this.conflicts.set(0);
+			throw new IllegalArgumentException("invalid");
+		}
+
+	}
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2025 Toshiaki Maki <makingx@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Launches the packaged application repeatedly and measures the time from starting the
+// process to the first successfully served cart request
+@EnabledIfSystemProperty(named = "startup-benchmark.enabled", matches = "true")
+class StartupBenchmark {
+
+	static final int ITERATIONS = Integer.getInteger("startup-benchmark.iterations", 5);
+
+	static final Duration TIMEOUT = Duration.parse(System.getProperty("startup-benchmark.timeout", "PT60S"));
+
+	static final Path JAR = Path.of(System.getProperty("startup-benchmark.jar", "target/demo-dsql-0.0.1-SNAPSHOT.jar"));
+
+	static final Path CDS_DIR = Path.of(System.getProperty("startup-benchmark.cds-dir", "target/cds"));
+
+	static final Path NATIVE_IMAGE = Path.of(System.getProperty("startup-benchmark.native-image", "target/demo-dsql"));
+
+	static final Path OUTPUT = Path.of(System.getProperty("startup-benchmark.output", "target/startup-benchmark"));
+
+	static final Pattern STARTED = Pattern.compile("Started \\w+ in ([0-9.]+) seconds");
+
+	static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+	final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+	@Test
+	void timeToFirstCartRequest() throws Exception {
+		// An existing PostgreSQL can be used with -Dstartup-benchmark.jdbc-url=...
+		String jdbcUrl = System.getProperty("startup-benchmark.jdbc-url");
+		String username = System.getProperty("startup-benchmark.username", "postgres");
+		PostgreSQLContainer<?> postgres = null;
+		if (jdbcUrl == null) {
+			// The application authenticates with a DSQL token, which trust ignores
+			postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"))
+				.withEnv("POSTGRES_HOST_AUTH_METHOD", "trust");
+			postgres.start();
+			jdbcUrl = postgres.getJdbcUrl();
+			username = postgres.getUsername();
+		}
+		try {
+			Map<String, Object> report = new LinkedHashMap<>();
+			for (Variant variant : Variant.values()) {
+				if (!variant.isAvailable()) {
+					report.put(variant.id(), Map.of("skipped", variant.artifact() + " not found"));
+					continue;
+				}
+				List<Launch> launches = new ArrayList<>();
+				for (int i = 0; i < ITERATIONS; i++) {
+					launches.add(launch(variant, i, jdbcUrl, username));
+				}
+				report.put(variant.id(), summarize(launches));
+			}
+			Files.createDirectories(OUTPUT);
+			objectMapper.writeValue(OUTPUT.resolve("startup.json").toFile(), report);
+			assertThat(report.get(Variant.JVM.id())).isInstanceOf(Map.class);
+		}
+		finally {
+			if (postgres != null) {
+				postgres.stop();
+			}
+		}
+	}
+
+	Launch launch(Variant variant, int iteration, String jdbcUrl, String username) throws Exception {
+		int port = freePort();
+		List<String> command = new ArrayList<>(variant.command());
+		command.addAll(List.of("--server.port=" + port, "--spring.datasource.url=" + jdbcUrl,
+				"--spring.datasource.username=" + username, "--spring.sql.init.platform=postgresql",
+				"--spring.cloud.aws.credentials.access-key=benchmark",
+				"--spring.cloud.aws.credentials.secret-key=benchmark",
+				"--spring.cloud.aws.region.static=ap-northeast-1"));
+		Files.createDirectories(OUTPUT);
+		Path log = OUTPUT.resolve(variant.id() + "-" + iteration + ".log");
+		HttpRequest request = HttpRequest
+			.newBuilder(URI.create("http://localhost:" + port + "/api/v1/carts?userId=startup-benchmark"))
+			.timeout(Duration.ofSeconds(5))
+			.build();
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+		try {
+			while (true) {
+				Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+				if (!process.isAlive() || elapsed.compareTo(TIMEOUT) > 0) {
+					throw new IllegalStateException(variant.id() + " did not serve a cart request, see " + log);
+				}
+				try {
+					if (this.httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+						return new Launch(elapsed.toNanos() / 1_000_000.0, startedMillis(log));
+					}
+				}
+				catch (ConnectException ex) {
+					// Not listening yet
+				}
+				Thread.sleep(5);
+			}
+		}
+		finally {
+			process.destroy();
+			if (!process.waitFor(10, TimeUnit.SECONDS)) {
+				process.destroyForcibly().waitFor();
+			}
+		}
+	}
+
+	// The startup time reported by Spring Boot, which excludes JVM startup
+	static Double startedMillis(Path log) throws IOException {
+		Matcher matcher = STARTED.matcher(Files.readString(log));
+		return matcher.find() ? Double.parseDouble(matcher.group(1)) * 1000 : null;
+	}
+
+	static Map<String, Object> summarize(List<Launch> launches) {
+		List<Double> firstRequest = launches.stream().map(Launch::firstRequestMillis).sorted().toList();
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("iterations", launches.size());
+		Map<String, Object> firstRequestMillis = new LinkedHashMap<>();
+		firstRequestMillis.put("min", firstRequest.get(0));
+		firstRequestMillis.put("median", firstRequest.get(firstRequest.size() / 2));
+		firstRequestMillis.put("max", firstRequest.get(firstRequest.size() - 1));
+		summary.put("firstRequestMillis", firstRequestMillis);
+		summary.put("launches", launches);
+		return summary;
+	}
+
+	static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	record Launch(double firstRequestMillis, Double startedMillis) {
+	}
+
+	enum Variant {
+
+		JVM(JAR) {
+			@Override
+			List<String> command() {
+				return List.of(java(), "-jar", JAR.toString());
+			}
+		},
+
+		// Built by the cds profile: AOT-processed, extracted and trained
+		CDS(CDS_DIR.resolve("application.jsa")) {
+			@Override
+			List<String> command() {
+				return List.of(java(), "-XX:SharedArchiveFile=" + artifact(), "-Dspring.aot.enabled=true", "-jar",
+						CDS_DIR.resolve(JAR.getFileName()).toString());
+			}
+		},
+
+		// Built by the native profile
+		NATIVE(NATIVE_IMAGE) {
+			@Override
+			List<String> command() {
+				return List.of(NATIVE_IMAGE.toAbsolutePath().toString());
+			}
+		};
+
+		private final Path artifact;
+
+		Variant(Path artifact) {
+			this.artifact = artifact;
+		}
+
+		abstract List<String> command();
+
+		Path artifact() {
+			return this.artifact;
+		}
+
+		String id() {
+			return name().toLowerCase();
+		}
+
+		boolean isAvailable() {
+			return Files.isRegularFile(this.artifact);
+		}
+
+		static String java() {
+			return ProcessHandle.current().info().command().orElse("java");
+		}
+
+	}
+
+}